@@ -0,0 +1,78 @@
+package com.example.crm.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost is picked for the host it runs on, see
+ * {@link #calibrateStrength(long, int, int)}. {@link #upgradeEncoding(String)} reports
+ * any stored hash whose cost differs from the calibrated one, so logins can re-hash
+ * passwords towards the current cost in either direction.
+ */
+@Slf4j
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final int SAMPLES_PER_COST = 3;
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    /**
+     * Measure hashing time on this host and return the highest cost in
+     * [minStrength, maxStrength] whose median hash time fits in targetMillis.
+     * Never returns less than minStrength, even on very slow hosts.
+     */
+    public static int calibrateStrength(long targetMillis, int minStrength, int maxStrength) {
+        // Warm up the JIT so the first measurement isn't inflated
+        new BCryptPasswordEncoder(minStrength).encode("calibration");
+
+        int chosen = minStrength;
+        for (int cost = minStrength; cost <= maxStrength; cost++) {
+            long millis = medianHashMillis(cost);
+            log.debug("BCrypt cost {} takes {} ms on this host", cost, millis);
+            if (millis > targetMillis) {
+                break;
+            }
+            chosen = cost;
+            // Each step doubles the work; don't spend time measuring a cost that will overshoot
+            if (millis * 2 > targetMillis) {
+                break;
+            }
+        }
+        log.info("Calibrated BCrypt cost to {} for a {} ms budget", chosen, targetMillis);
+        return chosen;
+    }
+
+    private static long medianHashMillis(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long[] samples = new long[SAMPLES_PER_COST];
+        for (int i = 0; i < SAMPLES_PER_COST; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            samples[i] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES_PER_COST / 2];
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.crm.config;
+
+import com.example.crm.model.User;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collections;
+
+/**
+ * Spring Security principal that keeps the {@link User} entity it was built from,
+ * so callers of the AuthenticationManager can reuse it instead of loading the user again.
+ */
+public class CrmUserDetails extends org.springframework.security.core.userdetails.User {
+    private final transient User user;
+
+    public CrmUserDetails(User user) {
+        super(
+                user.getUsername(),
+                user.getPasswordHash(),
+                user.getIsEnabled(),
+                user.getIsAccountNonExpired(),
+                user.getIsCredentialsNonExpired(),
+                user.getIsAccountNonLocked(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
+        );
+        this.user = user;
+    }
+
+    public User getUser() {
+        return user;
+    }
+}
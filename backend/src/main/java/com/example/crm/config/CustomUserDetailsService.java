@@ -3,11 +3,8 @@ package com.example.crm.config;
 import com.example.crm.model.User;
 import com.example.crm.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.*;
 
-import java.util.Collections;
-
 @Slf4j
 public class CustomUserDetailsService implements UserDetailsService {
     private final UserRepository userRepo;
@@ -23,14 +20,6 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         log.debug("Loading user details for: {}", username);
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPasswordHash(),
-                user.getIsEnabled(),
-                user.getIsAccountNonExpired(),
-                user.getIsCredentialsNonExpired(),
-                user.getIsAccountNonLocked(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
-        );
+        return new CrmUserDetails(user);
     }
 }
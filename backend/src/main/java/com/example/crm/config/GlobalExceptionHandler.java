@@ -2,6 +2,7 @@
 package com.example.crm.config;
 
 import com.example.crm.dto.ErrorResponse;
+import com.example.crm.service.InvalidCursorException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.*;
 import org.springframework.validation.FieldError;
@@ -91,6 +92,51 @@ public class GlobalExceptionHandler {
                 .body(body);
     }
 
+    /**
+     * Handle a pagination cursor that doesn't decode (tampered with or truncated).
+     * Returns HTTP 400 Bad Request.
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(
+            InvalidCursorException ex,
+            HttpServletRequest request
+    ) {
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        ErrorResponse body = new ErrorResponse(
+                status.value(),
+                status.getReasonPhrase(),
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity
+                .status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    /**
+     * Handle logins/registrations shed because the password hashing pool is saturated.
+     * Returns HTTP 503 with a Retry-After header.
+     */
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<ErrorResponse> handlePasswordHashingRejected(
+            PasswordHashingRejectedException ex,
+            HttpServletRequest request
+    ) {
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        ErrorResponse body = new ErrorResponse(
+                status.value(),
+                status.getReasonPhrase(),
+                ex.getMessage(),
+                request.getRequestURI()
+        );
+        return ResponseEntity
+                .status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     /**
      * Catch‐all for any other exceptions (unexpected server errors).
      * Returns HTTP 500 Internal Server Error.
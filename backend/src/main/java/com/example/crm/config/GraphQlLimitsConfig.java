@@ -0,0 +1,58 @@
+package com.example.crm.config;
+
+import com.example.crm.service.CursorPaging;
+import com.example.crm.service.GraphQueryService;
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLTypeUtil;
+import org.dataloader.DataLoaderOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.graphql.execution.DefaultBatchLoaderRegistry;
+
+/**
+ * Rejects GraphQL requests that nest too deeply or would resolve too much, before any
+ * of them runs. Complexity counts one per field, and a field taking {@code first} (a
+ * root page or a related list) counts its selection once per row it can return: its
+ * {@code first}, defaulted and clamped as the resolver will. Each level of lists so
+ * multiplies the cost, and the limit bounds how many rows a request can load.
+ * Batched relation loads are split into batches of at most
+ * {@code graphql.limits.max-batch-size} parents, which keeps each {@code IN (...)} list
+ * far below the 65,535 bind parameters a PostgreSQL statement can take.
+ */
+@Configuration
+public class GraphQlLimitsConfig {
+
+    @Bean
+    public MaxQueryDepthInstrumentation maxQueryDepthInstrumentation(
+            @Value("${graphql.limits.max-depth:8}") int maxDepth) {
+        return new MaxQueryDepthInstrumentation(maxDepth);
+    }
+
+    @Bean
+    public MaxQueryComplexityInstrumentation maxQueryComplexityInstrumentation(
+            @Value("${graphql.limits.max-complexity:20000}") int maxComplexity,
+            CursorPaging paging,
+            GraphQueryService graphService) {
+        FieldComplexityCalculator calculator = (environment, childComplexity) -> {
+            if (environment.getFieldDefinition().getArgument("first") == null) {
+                return 1 + childComplexity;
+            }
+            Integer first = (Integer) environment.getArguments().get("first");
+            // Related lists are lists themselves; root pages are objects holding the items
+            boolean list = GraphQLTypeUtil.unwrapNonNull(environment.getFieldDefinition().getType()) instanceof GraphQLList;
+            int rows = list ? graphService.relatedSize(first) : paging.limit(first);
+            return 1 + rows * childComplexity;
+        };
+        return new MaxQueryComplexityInstrumentation(maxComplexity, calculator);
+    }
+
+    @Bean
+    public BatchLoaderRegistry batchLoaderRegistry(@Value("${graphql.limits.max-batch-size:1000}") int maxBatchSize) {
+        return new DefaultBatchLoaderRegistry(() -> DataLoaderOptions.newOptions().setMaxBatchSize(maxBatchSize));
+    }
+}
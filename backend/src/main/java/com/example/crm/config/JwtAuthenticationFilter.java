@@ -1,6 +1,8 @@
 package com.example.crm.config;
 
 import com.example.crm.service.AuthService;
+import com.example.crm.service.RevocationRegistry;
+import com.example.crm.service.UserStatusCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
@@ -18,14 +20,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
     private final AuthService authService;
+    private final UserStatusCache userStatusCache;
+    private final RevocationRegistry revocationRegistry;
+    // Build the principal from token claims instead of loading the user per request
+    private final boolean principalFromClaims;
 
     public JwtAuthenticationFilter(
             JwtTokenProvider tokenProvider, 
             CustomUserDetailsService userDetailsService,
-            AuthService authService) {
+            AuthService authService,
+            UserStatusCache userStatusCache,
+            RevocationRegistry revocationRegistry,
+            boolean principalFromClaims) {
         this.tokenProvider = tokenProvider;
         this.userDetailsService = userDetailsService;
         this.authService = authService;
+        this.userStatusCache = userStatusCache;
+        this.revocationRegistry = revocationRegistry;
+        this.principalFromClaims = principalFromClaims;
     }
 
     @Override
@@ -36,19 +48,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         try {
             String authHeader = request.getHeader("Authorization");
-            String token = null;
             String username = null;
             String sessionId = null;
+            VerifiedAccessToken verified = null;
 
             if (authHeader != null && authHeader.startsWith("Bearer ")) {
-                token = authHeader.substring(7);
-                
-                if (tokenProvider.validateAccessToken(token)) {
-                    username = tokenProvider.getUsernameFromAccessToken(token);
-                    sessionId = tokenProvider.getSessionIdFromToken(token);
+                String token = authHeader.substring(7);
+                verified = tokenProvider.verifyAccessToken(token).orElse(null);
+
+                if (verified != null) {
+                    username = verified.getUsername();
+                    sessionId = verified.getSessionId();
                     
+                    // Revocations from any node, answered from memory
+                    if (revocationRegistry.isRevoked(verified.getTokenId()) || revocationRegistry.isRevoked(sessionId)) {
+                        log.warn("Revoked token or session {} for user {}", sessionId, username);
+                        username = null;
                     // Validate session if sessionId is present
-                    if (sessionId != null && !authService.isSessionValid(sessionId)) {
+                    } else if (sessionId != null && !authService.isSessionValid(sessionId)) {
                         log.warn("Invalid session {} for user {}", sessionId, username);
                         username = null; // Invalidate authentication
                     } else if (sessionId != null) {
@@ -62,22 +79,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 try {
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                    
-                    // Create authentication token
-                    UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails, null, userDetails.getAuthorities()
-                            );
-                    
-                    // Add additional details
-                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    
-                    // Set authentication in security context
-                    SecurityContextHolder.getContext().setAuthentication(authentication);
-                    
-                    log.debug("Successfully authenticated user: {} with session: {}", username, sessionId);
-                    
+                    UserDetails userDetails = loadPrincipal(verified);
+                    if (userDetails == null) {
+                        log.warn("Account for user {} is disabled or locked", username);
+                    } else {
+                        // Create authentication token
+                        UsernamePasswordAuthenticationToken authentication =
+                                new UsernamePasswordAuthenticationToken(
+                                        userDetails, null, userDetails.getAuthorities()
+                                );
+
+                        // Add additional details
+                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                        // Set authentication in security context
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+                        log.debug("Successfully authenticated user: {} with session: {}", username, sessionId);
+                    }
                 } catch (UsernameNotFoundException e) {
                     log.warn("User not found during token validation: {}", username);
                 }
@@ -89,6 +108,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * In claims mode the principal comes straight from the verified token, gated by the
+     * cached account status; otherwise (or for tokens without the needed claims) the
+     * user is loaded through the UserDetailsService. Returns null for unusable accounts.
+     */
+    private UserDetails loadPrincipal(VerifiedAccessToken verified) {
+        if (principalFromClaims && verified.getUserId() != null && verified.getRole() != null) {
+            if (!userStatusCache.isAccountUsable(verified.getUserId())) {
+                return null;
+            }
+            return User.withUsername(verified.getUsername())
+                    .password("")
+                    .authorities("ROLE_" + verified.getRole())
+                    .build();
+        }
+        return userDetailsService.loadUserByUsername(verified.getUsername());
+    }
+
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
         String path = request.getRequestURI();
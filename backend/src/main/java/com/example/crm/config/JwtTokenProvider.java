@@ -1,18 +1,27 @@
 package com.example.crm.config;
 
 import com.example.crm.model.User;
+import com.example.crm.model.enums.AccessTokenFormat;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Component
@@ -20,19 +29,50 @@ import java.util.UUID;
 public class JwtTokenProvider {
     private final Key accessTokenKey;
     private final Key refreshTokenKey;
+    // Parsers are immutable and thread-safe, so build them once instead of per call
+    private final JwtParser accessTokenParser;
+    private final JwtParser refreshTokenParser;
     private final long accessTokenValidityInMinutes;
     private final long refreshTokenValidityInDays;
+    // Verified access tokens keyed by digest; each entry lives until the token's own exp
+    private final Cache<TokenDigest, VerifiedAccessToken> verifiedTokenCache;
+    private final OpaqueTokenStore opaqueTokenStore;
 
     public JwtTokenProvider(
             @Value("${jwt.access-token.secret}") String accessTokenSecret,
             @Value("${jwt.refresh-token.secret}") String refreshTokenSecret,
             @Value("${jwt.access-token.expiration-minutes}") long accessTokenValidityInMinutes,
-            @Value("${jwt.refresh-token.expiration-days}") long refreshTokenValidityInDays
+            @Value("${jwt.refresh-token.expiration-days}") long refreshTokenValidityInDays,
+            @Value("${jwt.access-token.cache.max-size:10000}") long verifiedTokenCacheSize,
+            OpaqueTokenStore opaqueTokenStore,
+            MeterRegistry meterRegistry
     ) {
         this.accessTokenKey = Keys.hmacShaKeyFor(accessTokenSecret.getBytes());
         this.refreshTokenKey = Keys.hmacShaKeyFor(refreshTokenSecret.getBytes());
+        this.accessTokenParser = Jwts.parserBuilder().setSigningKey(accessTokenKey).build();
+        this.refreshTokenParser = Jwts.parserBuilder().setSigningKey(refreshTokenKey).build();
         this.accessTokenValidityInMinutes = accessTokenValidityInMinutes;
         this.refreshTokenValidityInDays = refreshTokenValidityInDays;
+        this.verifiedTokenCache = Caffeine.newBuilder()
+                .maximumSize(verifiedTokenCacheSize)
+                .expireAfter(new ExpireAtTokenExpiry())
+                .recordStats()
+                .build();
+        // Hit ratio and evictions as cache.* meters, tagged cache=verified-access-tokens
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokenCache, "verified-access-tokens");
+        this.opaqueTokenStore = opaqueTokenStore;
+    }
+
+    /**
+     * Issue an access token in the given format. Opaque tokens carry no claims; they are
+     * resolved through the {@link OpaqueTokenStore} by {@link #verifyAccessToken(String)}.
+     */
+    public String generateAccessToken(User user, String sessionId, AccessTokenFormat format) {
+        if (format == AccessTokenFormat.OPAQUE) {
+            Instant expiresAt = Instant.now().plus(Duration.ofMinutes(accessTokenValidityInMinutes));
+            return opaqueTokenStore.issue(user, sessionId, expiresAt);
+        }
+        return generateAccessToken(user, sessionId);
     }
 
     public String generateAccessToken(User user, String sessionId) {
@@ -75,6 +115,55 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    /**
+     * Parse and verify an access token once and return its claims.
+     * Empty if the signature, expiry or token type check fails.
+     * Tokens seen before are answered from the verified-token cache without
+     * re-running the signature check; a tampered token never matches a cached digest.
+     * Opaque tokens are looked up in the opaque token store instead.
+     */
+    public Optional<VerifiedAccessToken> verifyAccessToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        if (OpaqueTokenStore.isOpaque(token)) {
+            return opaqueTokenStore.resolve(token);
+        }
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedAccessToken cached = verifiedTokenCache.getIfPresent(digest);
+        if (cached != null) {
+            if (cached.getExpiresAt().isAfter(Instant.now())) {
+                return Optional.of(cached);
+            }
+            verifiedTokenCache.invalidate(digest);
+            return Optional.empty();
+        }
+
+        Optional<VerifiedAccessToken> verified = parseAccessToken(token);
+        verified.ifPresent(v -> verifiedTokenCache.put(digest, v));
+        return verified;
+    }
+
+    private Optional<VerifiedAccessToken> parseAccessToken(String token) {
+        try {
+            Claims claims = getClaimsFromAccessToken(token);
+            if (!"access".equals(claims.get("tokenType", String.class))) {
+                return Optional.empty();
+            }
+            return Optional.of(new VerifiedAccessToken(
+                    claims.getSubject(),
+                    claims.get("sessionId", String.class),
+                    claims.get("userId", Long.class),
+                    claims.get("role", String.class),
+                    claims.getExpiration().toInstant(),
+                    claims.getId()
+            ));
+        } catch (Exception e) {
+            log.debug("Access token validation failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     public String getUsernameFromAccessToken(String token) {
         try {
             return getClaimsFromAccessToken(token).getSubject();
@@ -103,6 +192,30 @@ public class JwtTokenProvider {
         }
     }
 
+    /**
+     * Session ID of an access token whose signature is valid, whether or not it has
+     * expired yet. Used on refresh to carry the caller's session forward.
+     */
+    public Optional<String> getSessionIdIgnoringExpiry(String token) {
+        if (OpaqueTokenStore.isOpaque(token)) {
+            return opaqueTokenStore.find(token).map(VerifiedAccessToken::getSessionId);
+        }
+        Claims claims;
+        try {
+            claims = getClaimsFromAccessToken(token);
+        } catch (ExpiredJwtException e) {
+            // Only thrown once the signature has been verified, so the claims are trustworthy
+            claims = e.getClaims();
+        } catch (Exception e) {
+            log.debug("Ignoring unusable access token on refresh: {}", e.getMessage());
+            return Optional.empty();
+        }
+        if (!"access".equals(claims.get("tokenType", String.class))) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(claims.get("sessionId", String.class));
+    }
+
     public Long getUserIdFromToken(String token) {
         try {
             Claims claims = getClaimsFromAccessToken(token);
@@ -134,6 +247,11 @@ public class JwtTokenProvider {
     }
 
     public OffsetDateTime getExpirationFromAccessToken(String token) {
+        if (OpaqueTokenStore.isOpaque(token)) {
+            return opaqueTokenStore.find(token)
+                    .map(verified -> verified.getExpiresAt().atOffset(OffsetDateTime.now().getOffset()))
+                    .orElse(null);
+        }
         try {
             Claims claims = getClaimsFromAccessToken(token);
             return claims.getExpiration().toInstant().atOffset(OffsetDateTime.now().getOffset());
@@ -143,6 +261,16 @@ public class JwtTokenProvider {
         }
     }
 
+    /**
+     * Delete a stored opaque token so it stops resolving. JWTs are self-contained;
+     * they are revoked through RevocationRegistry only.
+     */
+    public void revokeStoredAccessToken(String token) {
+        if (OpaqueTokenStore.isOpaque(token)) {
+            opaqueTokenStore.revoke(token);
+        }
+    }
+
     public long getAccessTokenValidityInMinutes() {
         return accessTokenValidityInMinutes;
     }
@@ -151,19 +279,30 @@ public class JwtTokenProvider {
         return refreshTokenValidityInDays;
     }
 
+    private static class ExpireAtTokenExpiry implements Expiry<TokenDigest, VerifiedAccessToken> {
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedAccessToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.getExpiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedAccessToken value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedAccessToken value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     private Claims getClaimsFromAccessToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(accessTokenKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return accessTokenParser.parseClaimsJws(token).getBody();
     }
 
     private Claims getClaimsFromRefreshToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(refreshTokenKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return refreshTokenParser.parseClaimsJws(token).getBody();
     }
 }
@@ -0,0 +1,38 @@
+package com.example.crm.config;
+
+import com.example.crm.model.User;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Server-side storage behind opaque access tokens, which {@link JwtTokenProvider}
+ * issues and verifies alongside JWTs. Implemented in the service layer.
+ */
+public interface OpaqueTokenStore {
+    String TOKEN_PREFIX = "ot_";
+
+    static boolean isOpaque(String token) {
+        return token != null && token.startsWith(TOKEN_PREFIX);
+    }
+
+    /**
+     * Store the principal and session for a new token and return the token.
+     */
+    String issue(User user, String sessionId, Instant expiresAt);
+
+    /**
+     * The principal and session behind an unexpired token.
+     */
+    Optional<VerifiedAccessToken> resolve(String token);
+
+    /**
+     * Like {@link #resolve(String)} but also returns expired tokens that are still stored.
+     */
+    Optional<VerifiedAccessToken> find(String token);
+
+    /**
+     * Delete a token so it stops resolving.
+     */
+    void revoke(String token);
+}
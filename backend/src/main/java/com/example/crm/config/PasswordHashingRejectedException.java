@@ -0,0 +1,18 @@
+package com.example.crm.config;
+
+/**
+ * Thrown when the password hashing pool is saturated and a login or registration
+ * is shed instead of queued. Mapped to 503 with a Retry-After header.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
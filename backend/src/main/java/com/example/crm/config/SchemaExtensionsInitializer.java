@@ -0,0 +1,38 @@
+package com.example.crm.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Applies db/schema-extensions.sql on startup: PostgreSQL-specific DDL (partial
+ * indexes and the like) that Hibernate's ddl-auto=update cannot express. The
+ * script is idempotent and runs after Hibernate has created/updated the tables.
+ */
+@Component
+@Slf4j
+public class SchemaExtensionsInitializer {
+    private static final String SCRIPT = "db/schema-extensions.sql";
+
+    private final DataSource dataSource;
+
+    // Depending on the EntityManagerFactory makes this run after Hibernate's schema update
+    public SchemaExtensionsInitializer(DataSource dataSource, EntityManagerFactory entityManagerFactory) {
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void apply() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource(SCRIPT));
+        // Send the script as a single statement so dollar-quoted blocks are left intact
+        populator.setSeparator(ScriptUtils.EOF_STATEMENT_SEPARATOR);
+        populator.execute(dataSource);
+        log.info("Applied schema extensions from {}", SCRIPT);
+    }
+}
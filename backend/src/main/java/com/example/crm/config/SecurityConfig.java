@@ -2,6 +2,11 @@ package com.example.crm.config;
 
 import com.example.crm.repository.UserRepository;
 import com.example.crm.service.AuthService;
+import com.example.crm.service.RevocationRegistry;
+import com.example.crm.service.UserStatusCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
@@ -11,7 +16,6 @@ import org.springframework.security.config.annotation.authentication.builders.Au
 import org.springframework.security.config.annotation.web.builders.*;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.*;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -25,10 +29,20 @@ import java.util.Arrays;
 public class SecurityConfig {
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
+    private final UserStatusCache userStatusCache;
+    private final RevocationRegistry revocationRegistry;
+    private final boolean principalFromClaims;
 
-    public SecurityConfig(UserRepository userRepository, JwtTokenProvider jwtTokenProvider) {
+    public SecurityConfig(UserRepository userRepository,
+                          JwtTokenProvider jwtTokenProvider,
+                          UserStatusCache userStatusCache,
+                          RevocationRegistry revocationRegistry,
+                          @Value("${security.jwt.principal-from-claims:true}") boolean principalFromClaims) {
         this.userRepository = userRepository;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.userStatusCache = userStatusCache;
+        this.revocationRegistry = revocationRegistry;
+        this.principalFromClaims = principalFromClaims;
     }
 
     @Bean
@@ -47,7 +61,8 @@ public class SecurityConfig {
 
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter(@Lazy AuthService authService) {
-        return new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService(), authService);
+        return new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService(), authService,
+                userStatusCache, revocationRegistry, principalFromClaims);
     }
 
     @Bean
@@ -57,12 +72,17 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(sess -> sess.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // Streamed responses finish in an ASYNC dispatch. The container only makes one
+                        // for a request whose REQUEST dispatch started async processing, which happens
+                        // in the controller, after this chain authorized it; a client cannot ask for an
+                        // ASYNC dispatch directly (see JsonArrayStreamerTests).
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Allow anonymous access to auth endpoints
                         .requestMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh").permitAll()
                         // Allow access to h2-console in development
                         .requestMatchers("/h2-console/**").permitAll()
-                        // Allow access to actuator endpoints
-                        .requestMatchers("/actuator/**").permitAll()
+                        // Allow access to the health check; metrics and any other actuator endpoint need a login
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
                         // Allow access to swagger/api docs
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         // All other endpoints require authentication
@@ -91,7 +111,23 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12); // Stronger encryption with cost factor 12
+    public PasswordEncoder passwordEncoder(
+            MeterRegistry meterRegistry,
+            @Value("${security.password.hashing.threads:0}") int threads,
+            @Value("${security.password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password.hashing.retry-after-seconds:2}") long retryAfterSeconds,
+            @Value("${security.password.bcrypt.strength:0}") int strength,
+            @Value("${security.password.bcrypt.target-millis:150}") long targetMillis,
+            @Value("${security.password.bcrypt.min-strength:10}") int minStrength,
+            @Value("${security.password.bcrypt.max-strength:16}") int maxStrength) {
+        // Default to half the cores so hashing bursts leave CPU for regular requests
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        // A fixed strength skips calibration; otherwise pick the highest cost that fits the budget on this host
+        int bcryptStrength = strength > 0
+                ? strength
+                : CalibratedBCryptPasswordEncoder.calibrateStrength(targetMillis, minStrength, maxStrength);
+        return new BoundedPasswordEncoder(
+                new CalibratedBCryptPasswordEncoder(bcryptStrength),
+                poolSize, queueCapacity, retryAfterSeconds, meterRegistry);
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.crm.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * The claims of an access token whose signature, expiry and token type have
+ * already been checked. Obtain one through {@link JwtTokenProvider#verifyAccessToken(String)}
+ * so a request parses its bearer token exactly once.
+ */
+@Getter
+@AllArgsConstructor
+public class VerifiedAccessToken {
+    private final String username;
+    private final String sessionId;
+    private final Long userId;
+    private final String role;
+    private final Instant expiresAt;
+    // The token's jti, used to revoke this one token
+    private final String tokenId;
+}
@@ -1,12 +1,18 @@
 package com.example.crm.controller;
 
 import com.example.crm.dto.ActivityDto;
+import com.example.crm.dto.CursorPage;
+import com.example.crm.dto.ExpandedActivityDto;
 import com.example.crm.service.ActivityService;
+import com.example.crm.model.enums.Expansion;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/activities")
@@ -18,18 +24,45 @@ public class ActivityController {
     }
 
     @GetMapping
-    public ResponseEntity<List<ActivityDto>> getAll() {
-        return ResponseEntity.ok(activityService.getAll());
+    public ResponseEntity<CursorPage<ExpandedActivityDto>> getPage(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(required = false) Integer limit,
+                                                                   @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok(activityService.getPage(cursor, limit, expansions(expand)));
+    }
+
+    // Full list, streamed row by row, for clients that really need everything at once
+    @GetMapping(params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> getAll(@RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(activityService.streamAll(expansions(expand)));
     }
 
     @GetMapping("/contact/{contactId}")
-    public ResponseEntity<List<ActivityDto>> getByContact(@PathVariable Long contactId) {
-        return ResponseEntity.ok(activityService.getByContact(contactId));
+    public ResponseEntity<CursorPage<ExpandedActivityDto>> getPageByContact(@PathVariable Long contactId,
+                                                                            @RequestParam(required = false) String cursor,
+                                                                            @RequestParam(required = false) Integer limit,
+                                                                            @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok(activityService.getPageByContact(contactId, cursor, limit, expansions(expand)));
+    }
+
+    @GetMapping(value = "/contact/{contactId}", params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> getByContact(@PathVariable Long contactId,
+                                                              @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(activityService.streamByContact(contactId, expansions(expand)));
     }
 
     @GetMapping("/pending")
-    public ResponseEntity<List<ActivityDto>> getPendingTasks() {
-        return ResponseEntity.ok(activityService.getPendingTasks());
+    public ResponseEntity<CursorPage<ExpandedActivityDto>> getPendingPage(@RequestParam(required = false) String cursor,
+                                                                          @RequestParam(required = false) Integer limit,
+                                                                          @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok(activityService.getPendingPage(cursor, limit, expansions(expand)));
+    }
+
+    @GetMapping(value = "/pending", params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> getPendingTasks(@RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(activityService.streamPendingTasks(expansions(expand)));
     }
 
     @GetMapping("/{id}")
@@ -52,4 +85,9 @@ public class ActivityController {
         activityService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Relations the rows of these lists can embed (?expand=...)
+    private static Set<Expansion> expansions(List<String> expand) {
+        return Expansions.parse(expand, Expansion.CONTACT, Expansion.CONTACT_COMPANY);
+    }
 }
@@ -56,7 +56,8 @@ public class AuthController {
             @RequestParam(value = "refreshToken", required = false) String refreshToken,
             @RequestParam(value = "sessionId", required = false) String sessionId) {
         try {
-            authService.logout(sessionId, refreshToken);
+            String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7) : null;
+            authService.logout(sessionId, refreshToken, accessToken);
             
             // Clear security context
             SecurityContextHolder.clearContext();
@@ -1,25 +1,37 @@
 package com.example.crm.controller;
 
 import com.example.crm.dto.CompanyDto;
+import com.example.crm.dto.CompanyOverviewDto;
+import com.example.crm.dto.CursorPage;
 import com.example.crm.service.CompanyService;
+import com.example.crm.service.OverviewService;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/companies")
 public class CompanyController {
     private final CompanyService companyService;
+    private final OverviewService overviewService;
 
-    public CompanyController(CompanyService companyService) {
+    public CompanyController(CompanyService companyService, OverviewService overviewService) {
         this.companyService = companyService;
+        this.overviewService = overviewService;
     }
 
     @GetMapping
-    public ResponseEntity<List<CompanyDto>> getAll() {
-        return ResponseEntity.ok(companyService.getAll());
+    public ResponseEntity<CursorPage<CompanyDto>> getPage(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(companyService.getPage(cursor, limit));
+    }
+
+    // Full list, streamed row by row, for clients that really need everything at once
+    @GetMapping(params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> getAll() {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(companyService.streamAll());
     }
 
     @GetMapping("/{id}")
@@ -27,6 +39,12 @@ public class CompanyController {
         return ResponseEntity.ok(companyService.getById(id));
     }
 
+    // The company with the related records its detail page shows
+    @GetMapping("/{id}/overview")
+    public ResponseEntity<CompanyOverviewDto> getOverview(@PathVariable Long id) {
+        return ResponseEntity.ok(overviewService.getCompanyOverview(id));
+    }
+
     @PostMapping
     public ResponseEntity<CompanyDto> create(@Valid @RequestBody CompanyDto dto) {
         return ResponseEntity.ok(companyService.create(dto));
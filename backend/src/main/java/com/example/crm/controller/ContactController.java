@@ -1,30 +1,59 @@
 package com.example.crm.controller;
 
 import com.example.crm.dto.ContactDto;
+import com.example.crm.dto.ContactOverviewDto;
+import com.example.crm.dto.CursorPage;
+import com.example.crm.dto.ExpandedContactDto;
 import com.example.crm.service.ContactService;
+import com.example.crm.service.OverviewService;
+import com.example.crm.model.enums.Expansion;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/contacts")
 public class ContactController {
     private final ContactService contactService;
+    private final OverviewService overviewService;
 
-    public ContactController(ContactService contactService) {
+    public ContactController(ContactService contactService, OverviewService overviewService) {
         this.contactService = contactService;
+        this.overviewService = overviewService;
     }
 
     @GetMapping
-    public ResponseEntity<List<ContactDto>> getAll() {
-        return ResponseEntity.ok(contactService.getAll());
+    public ResponseEntity<CursorPage<ExpandedContactDto>> getPage(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok(contactService.getPage(cursor, limit, expansions(expand)));
+    }
+
+    // Full list, streamed row by row, for clients that really need everything at once
+    @GetMapping(params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> getAll(@RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(contactService.streamAll(expansions(expand)));
     }
 
     @GetMapping("/company/{companyId}")
-    public ResponseEntity<List<ContactDto>> getByCompany(@PathVariable Long companyId) {
-        return ResponseEntity.ok(contactService.getByCompany(companyId));
+    public ResponseEntity<CursorPage<ExpandedContactDto>> getPageByCompany(@PathVariable Long companyId,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam(required = false) Integer limit,
+                                                                           @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok(contactService.getPageByCompany(companyId, cursor, limit, expansions(expand)));
+    }
+
+    @GetMapping(value = "/company/{companyId}", params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> getByCompany(@PathVariable Long companyId,
+                                                              @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(contactService.streamByCompany(companyId, expansions(expand)));
     }
 
     @GetMapping("/{id}")
@@ -32,6 +61,12 @@ public class ContactController {
         return ResponseEntity.ok(contactService.getById(id));
     }
 
+    // The contact with the related records its detail page shows
+    @GetMapping("/{id}/overview")
+    public ResponseEntity<ContactOverviewDto> getOverview(@PathVariable Long id) {
+        return ResponseEntity.ok(overviewService.getContactOverview(id));
+    }
+
     @PostMapping
     public ResponseEntity<ContactDto> create(@Valid @RequestBody ContactDto dto) {
         return ResponseEntity.ok(contactService.create(dto));
@@ -47,4 +82,9 @@ public class ContactController {
         contactService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Relations the rows of these lists can embed (?expand=...)
+    private static Set<Expansion> expansions(List<String> expand) {
+        return Expansions.parse(expand, Expansion.COMPANY);
+    }
 }
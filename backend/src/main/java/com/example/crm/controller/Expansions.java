@@ -0,0 +1,52 @@
+package com.example.crm.controller;
+
+import com.example.crm.model.enums.Expansion;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parses the {@code ?expand=} parameter of the list endpoints.
+ */
+final class Expansions {
+    private Expansions() {
+    }
+
+    /**
+     * The expansions named in {@code values} (each may itself be comma-separated), which
+     * must all be among those {@code allowed} on the endpoint.
+     */
+    static Set<Expansion> parse(List<String> values, Expansion... allowed) {
+        Set<Expansion> expansions = EnumSet.noneOf(Expansion.class);
+        if (values == null) {
+            return expansions;
+        }
+        List<Expansion> permitted = Arrays.asList(allowed);
+        for (String value : values) {
+            for (String name : value.split(",")) {
+                Expansion expansion = fromPath(name.trim());
+                if (!permitted.contains(expansion)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot expand " + expansion.getPath() + " here");
+                }
+                expansions.add(expansion);
+            }
+        }
+        if (expansions.contains(Expansion.CONTACT_COMPANY)) {
+            expansions.add(Expansion.CONTACT);
+        }
+        return expansions;
+    }
+
+    private static Expansion fromPath(String path) {
+        for (Expansion expansion : Expansion.values()) {
+            if (expansion.getPath().equals(path)) {
+                return expansion;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown expand: " + path);
+    }
+}
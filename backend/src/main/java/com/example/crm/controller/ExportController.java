@@ -0,0 +1,60 @@
+package com.example.crm.controller;
+
+import com.example.crm.model.enums.DataFormat;
+import com.example.crm.model.enums.OpportunityStage;
+import com.example.crm.service.BulkExportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Whole-table exports for BI, e.g. {@code GET /api/export/opportunities?format=ndjson&stage=WON&gzip=true}.
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+    private final BulkExportService exportService;
+
+    public ExportController(BulkExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable String dataset,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime to,
+            @RequestParam(required = false) OpportunityStage stage,
+            @RequestParam(required = false) Long companyId) {
+        BulkExportService.Dataset exported = BulkExportService.Dataset.fromName(dataset);
+        DataFormat dataFormat = parseFormat(format);
+        StreamingResponseBody body = exportService.export(exported, dataFormat, gzip,
+                new BulkExportService.Filter(from, to, stage, companyId));
+
+        String fileName = exported.fileName() + "." + dataFormat.getFileExtension() + (gzip ? ".gz" : "");
+        String contentType = gzip ? "application/gzip" : dataFormat.getMediaType();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(contentType))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    private static DataFormat parseFormat(String name) {
+        for (DataFormat format : DataFormat.values()) {
+            if (format.getFileExtension().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported format: " + name);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.crm.controller;
+
+import com.example.crm.dto.ActivityDto;
+import com.example.crm.dto.CompanyDto;
+import com.example.crm.dto.ContactDto;
+import com.example.crm.dto.CursorPage;
+import com.example.crm.dto.OpportunityDto;
+import com.example.crm.service.GraphQueryService;
+import com.example.crm.service.GraphQueryService.Related;
+import graphql.schema.DataFetchingEnvironment;
+import org.dataloader.DataLoader;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.BatchMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GraphQL read API (see schema.graphqls). Relation fields are batch mappings: GraphQL
+ * collects every parent of a field at one level of the request and resolves them
+ * together, so a request costs one query per relation and level rather than per row.
+ * Child lists take a {@code first} argument, so their loaders are keyed by parent and size
+ * and registered here rather than declared as batch mappings.
+ */
+@Controller
+public class GraphQueryController {
+    private static final String COMPANY_CONTACTS = "companyContacts";
+    private static final String CONTACT_OPPORTUNITIES = "contactOpportunities";
+    private static final String CONTACT_ACTIVITIES = "contactActivities";
+
+    private final GraphQueryService graphService;
+
+    public GraphQueryController(GraphQueryService graphService, BatchLoaderRegistry registry) {
+        this.graphService = graphService;
+        registry.<Related, List<ContactDto>>forName(COMPANY_CONTACTS)
+                .registerMappedBatchLoader((companies, env) ->
+                        Mono.fromSupplier(() -> graphService.contactsOfCompanies(companies)));
+        registry.<Related, List<OpportunityDto>>forName(CONTACT_OPPORTUNITIES)
+                .registerMappedBatchLoader((contacts, env) ->
+                        Mono.fromSupplier(() -> graphService.opportunitiesOfContacts(contacts)));
+        registry.<Related, List<ActivityDto>>forName(CONTACT_ACTIVITIES)
+                .registerMappedBatchLoader((contacts, env) ->
+                        Mono.fromSupplier(() -> graphService.activitiesOfContacts(contacts)));
+    }
+
+    @QueryMapping
+    public CompanyDto company(@Argument Long id) {
+        return graphService.company(id);
+    }
+
+    @QueryMapping
+    public CursorPage<CompanyDto> companies(@Argument String after, @Argument Integer first) {
+        return graphService.companies(after, first);
+    }
+
+    @QueryMapping
+    public ContactDto contact(@Argument Long id) {
+        return graphService.contact(id);
+    }
+
+    @QueryMapping
+    public CursorPage<ContactDto> contacts(@Argument String after, @Argument Integer first) {
+        return graphService.contacts(after, first);
+    }
+
+    @QueryMapping
+    public OpportunityDto opportunity(@Argument Long id) {
+        return graphService.opportunity(id);
+    }
+
+    @QueryMapping
+    public CursorPage<OpportunityDto> opportunities(@Argument String after, @Argument Integer first) {
+        return graphService.opportunities(after, first);
+    }
+
+    @QueryMapping
+    public ActivityDto activity(@Argument Long id) {
+        return graphService.activity(id);
+    }
+
+    @QueryMapping
+    public CursorPage<ActivityDto> activities(@Argument String after, @Argument Integer first) {
+        return graphService.activities(after, first);
+    }
+
+    @SchemaMapping(typeName = "Company", field = "contacts")
+    public CompletableFuture<List<ContactDto>> companyContacts(CompanyDto company, @Argument Integer first,
+                                                               DataFetchingEnvironment env) {
+        DataLoader<Related, List<ContactDto>> loader = env.getDataLoader(COMPANY_CONTACTS);
+        return loader.load(graphService.related(company.getId(), first));
+    }
+
+    @BatchMapping(typeName = "Contact", field = "company")
+    public List<CompanyDto> contactCompany(List<ContactDto> contacts) {
+        return graphService.companiesOf(contacts);
+    }
+
+    @SchemaMapping(typeName = "Contact", field = "opportunities")
+    public CompletableFuture<List<OpportunityDto>> contactOpportunities(ContactDto contact, @Argument Integer first,
+                                                                        DataFetchingEnvironment env) {
+        DataLoader<Related, List<OpportunityDto>> loader = env.getDataLoader(CONTACT_OPPORTUNITIES);
+        return loader.load(graphService.related(contact.getId(), first));
+    }
+
+    @SchemaMapping(typeName = "Contact", field = "activities")
+    public CompletableFuture<List<ActivityDto>> contactActivities(ContactDto contact, @Argument Integer first,
+                                                                  DataFetchingEnvironment env) {
+        DataLoader<Related, List<ActivityDto>> loader = env.getDataLoader(CONTACT_ACTIVITIES);
+        return loader.load(graphService.related(contact.getId(), first));
+    }
+
+    @BatchMapping(typeName = "Opportunity", field = "contact")
+    public List<ContactDto> opportunityContact(List<OpportunityDto> opportunities) {
+        return graphService.contactsOf(opportunities.stream().map(OpportunityDto::getContactId).toList());
+    }
+
+    @BatchMapping(typeName = "Activity", field = "contact")
+    public List<ContactDto> activityContact(List<ActivityDto> activities) {
+        return graphService.contactsOf(activities.stream().map(ActivityDto::getContactId).toList());
+    }
+}
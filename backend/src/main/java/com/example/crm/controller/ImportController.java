@@ -0,0 +1,49 @@
+package com.example.crm.controller;
+
+import com.example.crm.dto.ImportReport;
+import com.example.crm.model.enums.DataFormat;
+import com.example.crm.service.BulkImportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+
+/**
+ * Bulk loads, sent as the raw request body with Content-Type text/csv or
+ * application/x-ndjson.
+ */
+@RestController
+@RequestMapping("/api/import")
+public class ImportController {
+    private final BulkImportService importService;
+
+    public ImportController(BulkImportService importService) {
+        this.importService = importService;
+    }
+
+    @PostMapping(value = "/companies", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importCompanies(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                        InputStream body) {
+        return ResponseEntity.ok(importService.importCompanies(body, parseFormat(contentType)));
+    }
+
+    @PostMapping(value = "/contacts", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importContacts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                       InputStream body) {
+        return ResponseEntity.ok(importService.importContacts(body, parseFormat(contentType)));
+    }
+
+    private static DataFormat parseFormat(String contentType) {
+        MediaType type = MediaType.parseMediaType(contentType);
+        for (DataFormat format : DataFormat.values()) {
+            if (type.isCompatibleWith(MediaType.parseMediaType(format.getMediaType()))) {
+                return format;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported import format: " + contentType);
+    }
+}
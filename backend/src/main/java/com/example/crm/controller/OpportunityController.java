@@ -1,36 +1,75 @@
 package com.example.crm.controller;
 
+import com.example.crm.dto.CursorPage;
+import com.example.crm.dto.ExpandedOpportunityDto;
 import com.example.crm.dto.OpportunityDto;
+import com.example.crm.dto.OpportunityOverviewDto;
+import com.example.crm.model.enums.Expansion;
 import com.example.crm.model.enums.OpportunityStage;
 import com.example.crm.service.OpportunityService;
+import com.example.crm.service.OverviewService;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/opportunities")
 public class OpportunityController {
     private final OpportunityService oppService;
+    private final OverviewService overviewService;
 
-    public OpportunityController(OpportunityService oppService) {
+    public OpportunityController(OpportunityService oppService, OverviewService overviewService) {
         this.oppService = oppService;
+        this.overviewService = overviewService;
     }
 
     @GetMapping
-    public ResponseEntity<List<OpportunityDto>> getAll() {
-        return ResponseEntity.ok(oppService.getAll());
+    public ResponseEntity<CursorPage<ExpandedOpportunityDto>> getPage(@RequestParam(required = false) String cursor,
+                                                                      @RequestParam(required = false) Integer limit,
+                                                                      @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok(oppService.getPage(cursor, limit, expansions(expand)));
+    }
+
+    // Full list, streamed row by row, for clients that really need everything at once
+    @GetMapping(params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> getAll(@RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(oppService.streamAll(expansions(expand)));
     }
 
     @GetMapping("/contact/{contactId}")
-    public ResponseEntity<List<OpportunityDto>> getByContact(@PathVariable Long contactId) {
-        return ResponseEntity.ok(oppService.getByContact(contactId));
+    public ResponseEntity<CursorPage<ExpandedOpportunityDto>> getPageByContact(@PathVariable Long contactId,
+                                                                               @RequestParam(required = false) String cursor,
+                                                                               @RequestParam(required = false) Integer limit,
+                                                                               @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok(oppService.getPageByContact(contactId, cursor, limit, expansions(expand)));
+    }
+
+    @GetMapping(value = "/contact/{contactId}", params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> getByContact(@PathVariable Long contactId,
+                                                              @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(oppService.streamByContact(contactId, expansions(expand)));
     }
 
     @GetMapping("/stage/{stage}")
-    public ResponseEntity<List<OpportunityDto>> getByStage(@PathVariable OpportunityStage stage) {
-        return ResponseEntity.ok(oppService.getByStage(stage));
+    public ResponseEntity<CursorPage<ExpandedOpportunityDto>> getPageByStage(@PathVariable OpportunityStage stage,
+                                                                             @RequestParam(required = false) String cursor,
+                                                                             @RequestParam(required = false) Integer limit,
+                                                                             @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok(oppService.getPageByStage(stage, cursor, limit, expansions(expand)));
+    }
+
+    @GetMapping(value = "/stage/{stage}", params = "unpaged=true")
+    public ResponseEntity<StreamingResponseBody> getByStage(@PathVariable OpportunityStage stage,
+                                                            @RequestParam(required = false) List<String> expand) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(oppService.streamByStage(stage, expansions(expand)));
     }
 
     @GetMapping("/{id}")
@@ -38,6 +77,12 @@ public class OpportunityController {
         return ResponseEntity.ok(oppService.getById(id));
     }
 
+    // The opportunity with the related records its detail page shows
+    @GetMapping("/{id}/overview")
+    public ResponseEntity<OpportunityOverviewDto> getOverview(@PathVariable Long id) {
+        return ResponseEntity.ok(overviewService.getOpportunityOverview(id));
+    }
+
     @PostMapping
     public ResponseEntity<OpportunityDto> create(@Valid @RequestBody OpportunityDto dto) {
         return ResponseEntity.ok(oppService.create(dto));
@@ -53,4 +98,9 @@ public class OpportunityController {
         oppService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Relations the rows of these lists can embed (?expand=...)
+    private static Set<Expansion> expansions(List<String> expand) {
+        return Expansions.parse(expand, Expansion.CONTACT, Expansion.CONTACT_COMPANY);
+    }
 }
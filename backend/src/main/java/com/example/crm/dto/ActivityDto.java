@@ -1,12 +1,18 @@
 package com.example.crm.dto;
 
 import com.example.crm.model.enums.ActivityType;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.OffsetDateTime;
 
+// The all-args constructor is the target of the repository projection queries,
+// which list the columns in field order
 @Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class ActivityDto {
     private Long id;
     private Long contactId;
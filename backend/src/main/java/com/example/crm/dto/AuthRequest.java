@@ -1,5 +1,6 @@
 package com.example.crm.dto;
 
+import com.example.crm.model.enums.AccessTokenFormat;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Getter;
 import lombok.Setter;
@@ -11,4 +12,7 @@ public class AuthRequest {
 
     @NotBlank
     private String password;
+
+    // JWT or OPAQUE; the server default when absent
+    private AccessTokenFormat tokenFormat;
 }
@@ -0,0 +1,18 @@
+package com.example.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A company with everything of its account: its contacts (oldest first), and the
+ * opportunities and activities of those contacts (newest first).
+ */
+@Getter @AllArgsConstructor
+public class CompanyOverviewDto {
+    private CompanyDto company;
+    private List<ContactDto> contacts;
+    private List<OpportunityDto> opportunities;
+    private List<ActivityDto> activities;
+}
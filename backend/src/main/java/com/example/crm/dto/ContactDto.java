@@ -1,11 +1,17 @@
 package com.example.crm.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.OffsetDateTime;
 
+// The all-args constructor is the target of the repository projection queries,
+// which list the columns in field order
 @Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class ContactDto {
     private Long id;
     private Long companyId;
@@ -0,0 +1,18 @@
+package com.example.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A contact with its company (null if it has none) and its opportunities and
+ * activities, newest first.
+ */
+@Getter @AllArgsConstructor
+public class ContactOverviewDto {
+    private ContactDto contact;
+    private CompanyDto company;
+    private List<OpportunityDto> opportunities;
+    private List<ActivityDto> activities;
+}
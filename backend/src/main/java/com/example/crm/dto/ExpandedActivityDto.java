@@ -0,0 +1,18 @@
+package com.example.crm.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An activity with its contact embedded (and the contact's company, when that is
+ * expanded too); {@code contact} is left out for activities without one.
+ */
+@Getter @AllArgsConstructor
+public class ExpandedActivityDto {
+    @JsonUnwrapped
+    private ActivityDto activity;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ExpandedContactDto contact;
+}
@@ -0,0 +1,18 @@
+package com.example.crm.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A contact with its company embedded: the contact's own fields plus {@code company},
+ * which is left out when not expanded or when the contact has none.
+ */
+@Getter @AllArgsConstructor
+public class ExpandedContactDto {
+    @JsonUnwrapped
+    private ContactDto contact;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private CompanyDto company;
+}
@@ -0,0 +1,18 @@
+package com.example.crm.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * An opportunity with its contact embedded (and the contact's company, when that is
+ * expanded too).
+ */
+@Getter @AllArgsConstructor
+public class ExpandedOpportunityDto {
+    @JsonUnwrapped
+    private OpportunityDto opportunity;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private ExpandedContactDto contact;
+}
@@ -0,0 +1,30 @@
+package com.example.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import. Rows are numbered from 1, not counting a CSV header.
+ * {@code unchanged} rows matched a stored record without changing it; rows that repeat
+ * a key earlier in the same file are merged into the last one and counted as
+ * {@code duplicates}. Only the first {@code import.max-reported-errors} errors are listed.
+ */
+@Getter @AllArgsConstructor
+public class ImportReport {
+    private long rows;
+    private long inserted;
+    private long updated;
+    private long unchanged;
+    private long duplicates;
+    private long rejected;
+    private List<RowError> errors;
+    private long elapsedMillis;
+
+    @Getter @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String message;
+    }
+}
@@ -1,14 +1,20 @@
 package com.example.crm.dto;
 
 import com.example.crm.model.enums.OpportunityStage;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 
+// The all-args constructor is the target of the repository projection queries,
+// which list the columns in field order
 @Getter @Setter
+@NoArgsConstructor
+@AllArgsConstructor
 public class OpportunityDto {
     private Long id;
     private Long contactId;
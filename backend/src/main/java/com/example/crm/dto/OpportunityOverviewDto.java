@@ -0,0 +1,18 @@
+package com.example.crm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * An opportunity with its contact, the contact's company (null if it has none) and the
+ * contact's activities, newest first.
+ */
+@Getter @AllArgsConstructor
+public class OpportunityOverviewDto {
+    private OpportunityDto opportunity;
+    private ContactDto contact;
+    private CompanyDto company;
+    private List<ActivityDto> activities;
+}
@@ -1,5 +1,6 @@
 package com.example.crm.dto;
 
+import com.example.crm.model.enums.AccessTokenFormat;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -9,4 +10,11 @@ import lombok.NoArgsConstructor;
 public class RefreshTokenRequest {
     @NotBlank(message = "Refresh token is required")
     private String refreshToken;
+
+    // Session to keep alive, which must be the one the refresh token was issued with;
+    // when absent it is taken from the Authorization header's access token
+    private String sessionId;
+
+    // When absent, the format of the access token being replaced, else the server default
+    private AccessTokenFormat tokenFormat;
 } 
\ No newline at end of file
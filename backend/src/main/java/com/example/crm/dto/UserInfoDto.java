@@ -7,7 +7,7 @@ import lombok.Getter;
 
 import java.time.OffsetDateTime;
 
-@Getter @AllArgsConstructor @Builder
+@Getter @AllArgsConstructor @Builder(toBuilder = true)
 public class UserInfoDto {
     private Long id;
     private String username;
@@ -7,14 +7,19 @@ import lombok.*;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "activities")
+// Keyset pagination indexes; pending tasks use a partial index from db/schema-extensions.sql
+@Table(name = "activities", indexes = {
+        @Index(name = "idx_activities_created", columnList = "createdAt, id"),
+        @Index(name = "idx_activities_contact_created", columnList = "contact_id, createdAt, id")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Activity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    // Lazy: list DTOs only need the contact's id, which the proxy holds without a query
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "contact_id")
     private Contact contact;
 
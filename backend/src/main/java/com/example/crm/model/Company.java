@@ -7,7 +7,8 @@ import java.time.OffsetDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "companies")
+// Keyset pagination index
+@Table(name = "companies", indexes = @Index(name = "idx_companies_created", columnList = "createdAt, id"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Company {
     @Id
@@ -7,14 +7,19 @@ import java.time.OffsetDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "contacts")
+// Keyset pagination indexes
+@Table(name = "contacts", indexes = {
+        @Index(name = "idx_contacts_created", columnList = "createdAt, id"),
+        @Index(name = "idx_contacts_company_created", columnList = "company_id, createdAt, id")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Contact {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne(optional = true)
+    // Lazy: list DTOs only need the company's id, which the proxy holds without a query
+    @ManyToOne(optional = true, fetch = FetchType.LAZY)
     @JoinColumn(
             name = "company_id",
             nullable = true,
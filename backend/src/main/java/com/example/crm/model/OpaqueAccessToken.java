@@ -0,0 +1,40 @@
+package com.example.crm.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Persisted copy of an opaque access token, so tokens survive a restart and resolve
+ * on every node. Only the SHA-256 of the token is stored; the principal fields are
+ * denormalized so a lookup never needs a join.
+ */
+@Entity
+@Table(name = "opaque_access_tokens", indexes = {
+        @Index(name = "idx_opaque_access_tokens_expires_at", columnList = "expiresAt")
+})
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class OpaqueAccessToken {
+    @Id
+    @Column(length = 32)
+    private byte[] tokenHash;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false, length = 50)
+    private String username;
+
+    @Column(nullable = false, length = 20)
+    private String role;
+
+    @Column(length = 255)
+    private String sessionId;
+
+    @Column(nullable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(nullable = false)
+    private OffsetDateTime expiresAt;
+}
@@ -9,14 +9,20 @@ import java.time.LocalDate;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "opportunities")
+// Keyset pagination indexes
+@Table(name = "opportunities", indexes = {
+        @Index(name = "idx_opportunities_created", columnList = "createdAt, id"),
+        @Index(name = "idx_opportunities_contact_created", columnList = "contact_id, createdAt, id"),
+        @Index(name = "idx_opportunities_stage_created", columnList = "stage, createdAt, id")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Opportunity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    // Lazy: list DTOs only need the contact's id, which the proxy holds without a query
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "contact_id", nullable = false)
     private Contact contact;
 
@@ -13,17 +13,33 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, unique = true)
+    // SHA-256 of the token; covering index lives in db/schema-extensions.sql. NOT NULL is
+    // set there too, after rows from before hashing are hashed, so that the schema update
+    // can add the column to a table that still holds plaintext tokens
+    @Column(length = 32)
+    private byte[] tokenHash;
+
+    // Plaintext value, only known right after creation and never persisted
+    @Transient
     private String token;
 
+    // The foreign key is declared in db/schema-extensions.sql: Hibernate cannot see
+    // constraints on the partitioned table and would try to add its own on every start
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
 
+    // The session this token was issued with, the only one a refresh may keep alive.
+    // Null for tokens issued before tokens were bound to sessions; the column is added
+    // in db/schema-extensions.sql, as ddl-auto=update does not see partitioned tables
+    @Column
+    private String sessionId;
+
     @Column(nullable = false)
     private OffsetDateTime expiryDate;
 
-    @Column(nullable = false)
+    // Partition key (see schema-extensions.sql), so it is never updated
+    @Column(nullable = false, updatable = false)
     private OffsetDateTime createdAt = OffsetDateTime.now();
 
     @Column
@@ -0,0 +1,38 @@
+package com.example.crm.model;
+
+import com.example.crm.model.enums.JobRunStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+@Entity
+@Table(name = "scheduled_job_runs", indexes = @Index(columnList = "jobName, startedAt"))
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ScheduledJobRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String jobName;
+
+    @Column(nullable = false, length = 255)
+    private String owner;
+
+    @Column(nullable = false)
+    private OffsetDateTime startedAt;
+
+    @Column(nullable = false)
+    private OffsetDateTime finishedAt;
+
+    @Column(nullable = false)
+    private Long durationMillis;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private JobRunStatus status;
+
+    @Column(length = 1000)
+    private String errorMessage;
+}
@@ -0,0 +1,28 @@
+package com.example.crm.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Cluster-wide lease on a scheduled job. Written only through ScheduledJobLock,
+ * which claims a row with a single conditional upsert.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class SchedulerLease {
+    @Id
+    @Column(length = 100)
+    private String jobName;
+
+    @Column(nullable = false, length = 255)
+    private String owner;
+
+    @Column(nullable = false)
+    private OffsetDateTime lockedAt;
+
+    @Column(nullable = false)
+    private OffsetDateTime lockedUntil;
+}
@@ -13,11 +13,14 @@ public class UserSession {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // The foreign key is declared in db/schema-extensions.sql: Hibernate cannot see
+    // constraints on the partitioned table and would try to add its own on every start
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
 
-    @Column(nullable = false, unique = true)
+    // Indexed in db/schema-extensions.sql; a partitioned table cannot carry a unique constraint on it alone
+    @Column(nullable = false)
     private String sessionId;
 
     @Column(nullable = false)
@@ -32,13 +35,14 @@ public class UserSession {
     @Column
     private String location;
 
-    @Column(nullable = false)
+    // Partition key (see schema-extensions.sql), so it is never updated
+    @Column(nullable = false, updatable = false)
     private OffsetDateTime createdAt = OffsetDateTime.now();
 
     @Column(nullable = false)
     private OffsetDateTime lastAccessedAt = OffsetDateTime.now();
 
-    @Column
+    @Column(nullable = false)
     private OffsetDateTime expiredAt;
 
     @Column(nullable = false)
@@ -0,0 +1,10 @@
+package com.example.crm.model.enums;
+
+/**
+ * Wire format of issued access tokens: a self-contained signed JWT, or a short random
+ * reference resolved server-side.
+ */
+public enum AccessTokenFormat {
+    JWT,
+    OPAQUE
+}
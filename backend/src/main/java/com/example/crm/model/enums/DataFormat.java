@@ -0,0 +1,26 @@
+package com.example.crm.model.enums;
+
+/**
+ * Formats of the bulk import and export endpoints: CSV with a header row, or one JSON
+ * object per line. Request parameters and headers are mapped to one by the controllers.
+ */
+public enum DataFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String mediaType;
+    private final String fileExtension;
+
+    DataFormat(String mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.crm.model.enums;
+
+/**
+ * Related records a list endpoint can embed in each row ({@code ?expand=...}).
+ * {@code contact.company} embeds the contact with its company inside it.
+ */
+public enum Expansion {
+    COMPANY("company"),
+    CONTACT("contact"),
+    CONTACT_COMPANY("contact.company");
+
+    private final String path;
+
+    Expansion(String path) {
+        this.path = path;
+    }
+
+    public String getPath() {
+        return path;
+    }
+}
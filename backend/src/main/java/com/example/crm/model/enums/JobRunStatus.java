@@ -0,0 +1,6 @@
+package com.example.crm.model.enums;
+
+public enum JobRunStatus {
+    SUCCEEDED,
+    FAILED
+}
@@ -1,12 +1,79 @@
 package com.example.crm.repository;
 
+import com.example.crm.dto.ActivityDto;
 import com.example.crm.model.Activity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Read paths select straight into ActivityDto: no entities are hydrated or tracked, and
+ * the contact is read as the contact_id column, so no query joins or loads contacts.
+ */
 public interface ActivityRepository extends JpaRepository<Activity, Long> {
-    List<Activity> findByContactId(Long contactId);
-    List<Activity> findByDueDateBeforeAndCompletedFalse(OffsetDateTime now);
+    String SELECT_DTO = "SELECT new com.example.crm.dto.ActivityDto(a.id, a.contact.id, a.type, a.subject, " +
+                        "a.description, a.activityDate, a.dueDate, a.completed, a.createdAt, a.updatedAt) " +
+                        "FROM Activity a ";
+
+    @Query(SELECT_DTO + "WHERE a.id = :id")
+    Optional<ActivityDto> findDtoById(@Param("id") Long id);
+
+    // Everything of one contact or company, newest first, for the overviews
+    @Query(SELECT_DTO + "WHERE a.contact.id = :contactId ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityDto> findDtosByContactId(@Param("contactId") Long contactId);
+
+    @Query(SELECT_DTO + "WHERE a.contact.id IN (SELECT c.id FROM Contact c WHERE c.company.id = :companyId) " +
+           "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ActivityDto> findDtosByCompanyId(@Param("companyId") Long companyId);
+
+    // The newest activities of each of one batch of contacts (see GraphQueryService)
+    @Query("SELECT new com.example.crm.dto.ActivityDto(r.id, r.contactId, r.type, r.subject, r.description, " +
+           "r.activityDate, r.dueDate, r.completed, r.createdAt, r.updatedAt) FROM (" +
+           "SELECT a.id AS id, a.contact.id AS contactId, a.type AS type, a.subject AS subject, " +
+           "a.description AS description, a.activityDate AS activityDate, a.dueDate AS dueDate, " +
+           "a.completed AS completed, a.createdAt AS createdAt, a.updatedAt AS updatedAt, " +
+           "row_number() OVER (PARTITION BY a.contact.id ORDER BY a.createdAt DESC, a.id DESC) AS position " +
+           "FROM Activity a WHERE a.contact.id IN :contactIds) r " +
+           "WHERE r.position <= :first ORDER BY r.createdAt DESC, r.id DESC")
+    List<ActivityDto> findFirstDtosByContactIdIn(@Param("contactIds") Collection<Long> contactIds,
+                                                 @Param("first") int first);
+
+    // Keyset pages, newest first: rows strictly after the (createdAt, id) cursor
+    @Query(SELECT_DTO + "WHERE (a.createdAt, a.id) < (:createdAt, :id) " +
+           "ORDER BY a.createdAt DESC, a.id DESC LIMIT :limit")
+    List<ActivityDto> findPage(@Param("createdAt") OffsetDateTime createdAt, @Param("id") long id,
+                               @Param("limit") int limit);
+
+    @Query(SELECT_DTO + "WHERE a.contact.id = :contactId AND (a.createdAt, a.id) < (:createdAt, :id) " +
+           "ORDER BY a.createdAt DESC, a.id DESC LIMIT :limit")
+    List<ActivityDto> findPageByContactId(@Param("contactId") Long contactId, @Param("createdAt") OffsetDateTime createdAt,
+                                          @Param("id") long id, @Param("limit") int limit);
+
+    // Pending tasks, earliest due first
+    @Query(SELECT_DTO + "WHERE a.completed = false AND a.dueDate < :now " +
+           "AND (a.dueDate, a.id) > (:dueDate, :id) ORDER BY a.dueDate, a.id LIMIT :limit")
+    List<ActivityDto> findPendingPage(@Param("now") OffsetDateTime now, @Param("dueDate") OffsetDateTime dueDate,
+                                      @Param("id") long id, @Param("limit") int limit);
+
+    // Whole-list reads for streamed responses: a cursor with a fetch size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO)
+    Stream<ActivityDto> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO + "WHERE a.contact.id = :contactId")
+    Stream<ActivityDto> streamByContactId(@Param("contactId") Long contactId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO + "WHERE a.completed = false AND a.dueDate < :now")
+    Stream<ActivityDto> streamPending(@Param("now") OffsetDateTime now);
 }
@@ -1,7 +1,43 @@
 package com.example.crm.repository;
 
+import com.example.crm.dto.CompanyDto;
 import com.example.crm.model.Company;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Read paths select straight into CompanyDto, so no entities are hydrated or tracked.
+ */
 public interface CompanyRepository extends JpaRepository<Company, Long> {
+    String SELECT_DTO = "SELECT new com.example.crm.dto.CompanyDto(c.id, c.name, c.industry, c.website, " +
+                        "c.addressLine1, c.addressLine2, c.city, c.state, c.postalCode, c.country, " +
+                        "c.createdAt, c.updatedAt) FROM Company c ";
+
+    @Query(SELECT_DTO + "WHERE c.id = :id")
+    Optional<CompanyDto> findDtoById(@Param("id") Long id);
+
+    // One batch of list rows' related records (see RelationExpander)
+    @Query(SELECT_DTO + "WHERE c.id IN :ids")
+    List<CompanyDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Keyset page, newest first: rows strictly after the (createdAt, id) cursor
+    @Query(SELECT_DTO + "WHERE (c.createdAt, c.id) < (:createdAt, :id) " +
+           "ORDER BY c.createdAt DESC, c.id DESC LIMIT :limit")
+    List<CompanyDto> findPage(@Param("createdAt") OffsetDateTime createdAt, @Param("id") long id,
+                              @Param("limit") int limit);
+
+    // Whole-list read for streamed responses: a cursor with a fetch size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO)
+    Stream<CompanyDto> streamAll();
 }
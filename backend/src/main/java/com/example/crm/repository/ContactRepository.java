@@ -1,10 +1,68 @@
 package com.example.crm.repository;
 
+import com.example.crm.dto.ContactDto;
 import com.example.crm.model.Contact;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Read paths select straight into ContactDto: no entities are hydrated or tracked, and the
+ * company is read as the company_id column, so no query joins or loads companies.
+ */
 public interface ContactRepository extends JpaRepository<Contact, Long> {
-    List<Contact> findByCompanyId(Long companyId);
+    String SELECT_DTO = "SELECT new com.example.crm.dto.ContactDto(c.id, c.company.id, c.firstName, c.lastName, " +
+                        "c.email, c.phone, c.jobTitle, c.createdAt, c.updatedAt) FROM Contact c ";
+
+    @Query(SELECT_DTO + "WHERE c.id = :id")
+    Optional<ContactDto> findDtoById(@Param("id") Long id);
+
+    // A company's contacts for its overview, oldest (the primary contact) first
+    @Query(SELECT_DTO + "WHERE c.company.id = :companyId ORDER BY c.createdAt, c.id")
+    List<ContactDto> findDtosByCompanyId(@Param("companyId") Long companyId);
+
+    // One batch of list rows' related records (see RelationExpander)
+    @Query(SELECT_DTO + "WHERE c.id IN :ids")
+    List<ContactDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    // The first contacts of each of one batch of companies (see GraphQueryService), oldest first
+    @Query("SELECT new com.example.crm.dto.ContactDto(r.id, r.companyId, r.firstName, r.lastName, r.email, " +
+           "r.phone, r.jobTitle, r.createdAt, r.updatedAt) FROM (" +
+           "SELECT c.id AS id, c.company.id AS companyId, c.firstName AS firstName, c.lastName AS lastName, " +
+           "c.email AS email, c.phone AS phone, c.jobTitle AS jobTitle, c.createdAt AS createdAt, " +
+           "c.updatedAt AS updatedAt, " +
+           "row_number() OVER (PARTITION BY c.company.id ORDER BY c.createdAt, c.id) AS position " +
+           "FROM Contact c WHERE c.company.id IN :companyIds) r " +
+           "WHERE r.position <= :first ORDER BY r.createdAt, r.id")
+    List<ContactDto> findFirstDtosByCompanyIdIn(@Param("companyIds") Collection<Long> companyIds,
+                                                @Param("first") int first);
+
+    // Keyset pages, newest first: rows strictly after the (createdAt, id) cursor
+    @Query(SELECT_DTO + "WHERE (c.createdAt, c.id) < (:createdAt, :id) " +
+           "ORDER BY c.createdAt DESC, c.id DESC LIMIT :limit")
+    List<ContactDto> findPage(@Param("createdAt") OffsetDateTime createdAt, @Param("id") long id,
+                              @Param("limit") int limit);
+
+    @Query(SELECT_DTO + "WHERE c.company.id = :companyId AND (c.createdAt, c.id) < (:createdAt, :id) " +
+           "ORDER BY c.createdAt DESC, c.id DESC LIMIT :limit")
+    List<ContactDto> findPageByCompanyId(@Param("companyId") Long companyId, @Param("createdAt") OffsetDateTime createdAt,
+                                         @Param("id") long id, @Param("limit") int limit);
+
+    // Whole-list reads for streamed responses: a cursor with a fetch size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO)
+    Stream<ContactDto> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO + "WHERE c.company.id = :companyId")
+    Stream<ContactDto> streamByCompanyId(@Param("companyId") Long companyId);
 }
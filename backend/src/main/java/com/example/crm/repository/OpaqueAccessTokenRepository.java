@@ -0,0 +1,39 @@
+package com.example.crm.repository;
+
+import com.example.crm.model.OpaqueAccessToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+@Repository
+public interface OpaqueAccessTokenRepository extends JpaRepository<OpaqueAccessToken, byte[]> {
+
+    Optional<OpaqueAccessToken> findByTokenHash(byte[] tokenHash);
+
+    // Plain insert: the hash is always new, so skip the select that save() would do first
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO opaque_access_tokens " +
+                   "(token_hash, user_id, username, role, session_id, created_at, expires_at) " +
+                   "VALUES (:#{#t.tokenHash}, :#{#t.userId}, :#{#t.username}, :#{#t.role}, " +
+                   ":#{#t.sessionId}, :#{#t.createdAt}, :#{#t.expiresAt})", nativeQuery = true)
+    void insert(@Param("t") OpaqueAccessToken token);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OpaqueAccessToken t WHERE t.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") byte[] tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM opaque_access_tokens WHERE token_hash IN " +
+                   "(SELECT token_hash FROM opaque_access_tokens WHERE expires_at < :now LIMIT :limit)",
+           nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") OffsetDateTime now, @Param("limit") int limit);
+}
@@ -1,12 +1,77 @@
 package com.example.crm.repository;
 
+import com.example.crm.dto.OpportunityDto;
 import com.example.crm.model.Opportunity;
 import com.example.crm.model.enums.OpportunityStage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Read paths select straight into OpportunityDto: no entities are hydrated or tracked, and
+ * the contact is read as the contact_id column, so no query joins or loads contacts.
+ */
 public interface OpportunityRepository extends JpaRepository<Opportunity, Long> {
-    List<Opportunity> findByContactId(Long contactId);
-    List<Opportunity> findByStage(OpportunityStage stage);
+    String SELECT_DTO = "SELECT new com.example.crm.dto.OpportunityDto(o.id, o.contact.id, o.title, o.amount, " +
+                        "o.stage, o.closeDate, o.createdAt, o.updatedAt) FROM Opportunity o ";
+
+    @Query(SELECT_DTO + "WHERE o.id = :id")
+    Optional<OpportunityDto> findDtoById(@Param("id") Long id);
+
+    // Everything of one contact or company, newest first, for the overviews
+    @Query(SELECT_DTO + "WHERE o.contact.id = :contactId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OpportunityDto> findDtosByContactId(@Param("contactId") Long contactId);
+
+    @Query(SELECT_DTO + "WHERE o.contact.id IN (SELECT c.id FROM Contact c WHERE c.company.id = :companyId) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OpportunityDto> findDtosByCompanyId(@Param("companyId") Long companyId);
+
+    // The newest opportunities of each of one batch of contacts (see GraphQueryService)
+    @Query("SELECT new com.example.crm.dto.OpportunityDto(r.id, r.contactId, r.title, r.amount, r.stage, " +
+           "r.closeDate, r.createdAt, r.updatedAt) FROM (" +
+           "SELECT o.id AS id, o.contact.id AS contactId, o.title AS title, o.amount AS amount, o.stage AS stage, " +
+           "o.closeDate AS closeDate, o.createdAt AS createdAt, o.updatedAt AS updatedAt, " +
+           "row_number() OVER (PARTITION BY o.contact.id ORDER BY o.createdAt DESC, o.id DESC) AS position " +
+           "FROM Opportunity o WHERE o.contact.id IN :contactIds) r " +
+           "WHERE r.position <= :first ORDER BY r.createdAt DESC, r.id DESC")
+    List<OpportunityDto> findFirstDtosByContactIdIn(@Param("contactIds") Collection<Long> contactIds,
+                                                    @Param("first") int first);
+
+    // Keyset pages, newest first: rows strictly after the (createdAt, id) cursor
+    @Query(SELECT_DTO + "WHERE (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC LIMIT :limit")
+    List<OpportunityDto> findPage(@Param("createdAt") OffsetDateTime createdAt, @Param("id") long id,
+                                  @Param("limit") int limit);
+
+    @Query(SELECT_DTO + "WHERE o.contact.id = :contactId AND (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC LIMIT :limit")
+    List<OpportunityDto> findPageByContactId(@Param("contactId") Long contactId, @Param("createdAt") OffsetDateTime createdAt,
+                                             @Param("id") long id, @Param("limit") int limit);
+
+    @Query(SELECT_DTO + "WHERE o.stage = :stage AND (o.createdAt, o.id) < (:createdAt, :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC LIMIT :limit")
+    List<OpportunityDto> findPageByStage(@Param("stage") OpportunityStage stage, @Param("createdAt") OffsetDateTime createdAt,
+                                         @Param("id") long id, @Param("limit") int limit);
+
+    // Whole-list reads for streamed responses: a cursor with a fetch size
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO)
+    Stream<OpportunityDto> streamAll();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO + "WHERE o.contact.id = :contactId")
+    Stream<OpportunityDto> streamByContactId(@Param("contactId") Long contactId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO + "WHERE o.stage = :stage")
+    Stream<OpportunityDto> streamByStage(@Param("stage") OpportunityStage stage);
 }
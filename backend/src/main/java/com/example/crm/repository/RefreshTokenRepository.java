@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -15,7 +16,7 @@ import java.util.Optional;
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
     
-    Optional<RefreshToken> findByTokenAndIsRevokedFalse(String token);
+    Optional<RefreshToken> findByTokenHashAndIsRevokedFalse(byte[] tokenHash);
     
     List<RefreshToken> findByUserAndIsRevokedFalse(User user);
     
@@ -24,13 +25,32 @@ public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long
     void revokeAllByUser(@Param("user") User user, @Param("revokedAt") OffsetDateTime revokedAt);
     
     @Modifying
-    @Query("UPDATE RefreshToken rt SET rt.isRevoked = true, rt.revokedAt = :revokedAt WHERE rt.token = :token")
-    void revokeByToken(@Param("token") String token, @Param("revokedAt") OffsetDateTime revokedAt);
+    @Query("UPDATE RefreshToken rt SET rt.isRevoked = true, rt.revokedAt = :revokedAt WHERE rt.tokenHash = :tokenHash")
+    void revokeByTokenHash(@Param("tokenHash") byte[] tokenHash, @Param("revokedAt") OffsetDateTime revokedAt);
     
+    /**
+     * Delete up to {@code limit} revoked tokens in a transaction of its own.
+     * Expired tokens go away with their partition instead.
+     */
+    @Transactional
     @Modifying
-    @Query("DELETE FROM RefreshToken rt WHERE rt.expiryDate < :now OR rt.isRevoked = true")
-    void deleteExpiredAndRevokedTokens(@Param("now") OffsetDateTime now);
+    @Query(value = "DELETE FROM refresh_tokens WHERE id IN " +
+                   "(SELECT id FROM refresh_tokens WHERE is_revoked = true LIMIT :limit)", nativeQuery = true)
+    int deleteRevokedBatch(@Param("limit") int limit);
     
-    @Query("SELECT COUNT(rt) FROM RefreshToken rt WHERE rt.user = :user AND rt.isRevoked = false AND rt.expiryDate > :now")
-    long countActiveTokensByUser(@Param("user") User user, @Param("now") OffsetDateTime now);
+    /**
+     * Revoke all but the {@code keep} newest active refresh tokens of a user in one
+     * windowed statement. Callers serialize per user with {@link UserRepository#lockById(Long)}.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE refresh_tokens rt SET is_revoked = true, revoked_at = :now
+            FROM (
+                SELECT id, row_number() OVER (ORDER BY created_at DESC, id DESC) AS rn
+                FROM refresh_tokens
+                WHERE user_id = :userId AND is_revoked = false
+            ) ranked
+            WHERE rt.id = ranked.id AND ranked.rn > :keep
+            """, nativeQuery = true)
+    int revokeAllButNewest(@Param("userId") Long userId, @Param("keep") int keep, @Param("now") OffsetDateTime now);
 } 
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.example.crm.repository;
+
+import com.example.crm.model.ScheduledJobRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ScheduledJobRunRepository extends JpaRepository<ScheduledJobRun, Long> {
+
+    List<ScheduledJobRun> findTop20ByJobNameOrderByStartedAtDesc(String jobName);
+}
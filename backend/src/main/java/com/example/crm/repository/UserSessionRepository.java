@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.OffsetDateTime;
 import java.util.List;
@@ -16,6 +17,8 @@ import java.util.Optional;
 public interface UserSessionRepository extends JpaRepository<UserSession, Long> {
     
     Optional<UserSession> findBySessionIdAndIsActiveTrue(String sessionId);
+
+    Optional<UserSession> findBySessionId(String sessionId);
     
     List<UserSession> findByUserAndIsActiveTrue(User user);
     
@@ -27,14 +30,42 @@ public interface UserSessionRepository extends JpaRepository<UserSession, Long>
     @Query("UPDATE UserSession us SET us.isActive = false WHERE us.sessionId = :sessionId")
     void deactivateBySessionId(@Param("sessionId") String sessionId);
     
+    /**
+     * Extend a session that is still active and unexpired and belongs to the given user.
+     * Returns the number of rows updated (0 or 1).
+     */
     @Modifying
-    @Query("UPDATE UserSession us SET us.lastAccessedAt = :accessTime WHERE us.sessionId = :sessionId")
-    void updateLastAccessedTime(@Param("sessionId") String sessionId, @Param("accessTime") OffsetDateTime accessTime);
-    
+    @Query("UPDATE UserSession us SET us.lastAccessedAt = :now, us.expiredAt = :expiresAt " +
+           "WHERE us.sessionId = :sessionId AND us.user.id = :userId AND us.isActive = true AND us.expiredAt > :now")
+    int extendActiveSession(@Param("sessionId") String sessionId, @Param("userId") Long userId,
+                            @Param("now") OffsetDateTime now, @Param("expiresAt") OffsetDateTime expiresAt);
+
+    /**
+     * Delete up to {@code limit} deactivated sessions that expired before {@code expiredBefore},
+     * in a transaction of its own. Until then the row is what nodes that missed the
+     * revocation replay it from (see SessionIndex and RevocationRegistry).
+     */
+    @Transactional
     @Modifying
-    @Query("DELETE FROM UserSession us WHERE us.expiredAt < :now OR us.isActive = false")
-    void deleteExpiredAndInactiveSessions(@Param("now") OffsetDateTime now);
+    @Query(value = "DELETE FROM user_sessions WHERE id IN " +
+                   "(SELECT id FROM user_sessions WHERE is_active = false AND expired_at < :expiredBefore LIMIT :limit)",
+           nativeQuery = true)
+    int deleteInactiveBatch(@Param("expiredBefore") OffsetDateTime expiredBefore, @Param("limit") int limit);
     
-    @Query("SELECT COUNT(us) FROM UserSession us WHERE us.user = :user AND us.isActive = true")
-    long countActiveSessionsByUser(@Param("user") User user);
+    /**
+     * Deactivate all but the {@code keep} most recently used active sessions of a user
+     * in one windowed statement, returning the sessionIds that were deactivated.
+     * Callers serialize per user with {@link UserRepository#lockById(Long)}.
+     */
+    @Query(value = """
+            UPDATE user_sessions us SET is_active = false
+            FROM (
+                SELECT id, row_number() OVER (ORDER BY last_accessed_at DESC, id DESC) AS rn
+                FROM user_sessions
+                WHERE user_id = :userId AND is_active = true
+            ) ranked
+            WHERE us.id = ranked.id AND ranked.rn > :keep
+            RETURNING us.session_id
+            """, nativeQuery = true)
+    List<String> deactivateAllButNewest(@Param("userId") Long userId, @Param("keep") int keep);
 } 
\ No newline at end of file
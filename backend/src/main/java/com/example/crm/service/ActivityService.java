@@ -1,55 +1,88 @@
 package com.example.crm.service;
 
+import com.example.crm.dto.CursorPage;
+import com.example.crm.dto.ExpandedActivityDto;
 import com.example.crm.dto.ActivityDto;
 import com.example.crm.model.Activity;
 import com.example.crm.model.Contact;
 import com.example.crm.model.User;
+import com.example.crm.model.enums.Expansion;
 import com.example.crm.repository.ActivityRepository;
 import com.example.crm.repository.ContactRepository;
 import com.example.crm.repository.UserRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import jakarta.transaction.Transactional;
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class ActivityService {
     private final ActivityRepository activityRepo;
     private final ContactRepository contactRepo;
+    private final CursorPaging paging;
+    private final JsonArrayStreamer streamer;
+    private final RelationExpander expander;
 
     public ActivityService(ActivityRepository activityRepo,
                            ContactRepository contactRepo,
-                           UserRepository userRepo) {
+                           UserRepository userRepo,
+                           CursorPaging paging,
+                           JsonArrayStreamer streamer,
+                           RelationExpander expander) {
         this.activityRepo = activityRepo;
         this.contactRepo = contactRepo;
+        this.paging = paging;
+        this.streamer = streamer;
+        this.expander = expander;
     }
 
-    public List<ActivityDto> getAll() {
-        return activityRepo.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    public StreamingResponseBody streamAll(Set<Expansion> expand) {
+        return stream(() -> activityRepo.streamAll(), expand);
     }
 
-    public List<ActivityDto> getByContact(Long contactId) {
-        return activityRepo.findByContactId(contactId).stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    public StreamingResponseBody streamByContact(Long contactId, Set<Expansion> expand) {
+        return stream(() -> activityRepo.streamByContactId(contactId), expand);
     }
 
-    public List<ActivityDto> getPendingTasks() {
+    public StreamingResponseBody streamPendingTasks(Set<Expansion> expand) {
         OffsetDateTime now = OffsetDateTime.now();
-        return activityRepo.findByDueDateBeforeAndCompletedFalse(now).stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return stream(() -> activityRepo.streamPending(now), expand);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<ExpandedActivityDto> getPage(String cursor, Integer limit, Set<Expansion> expand) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return expand(paging.page(activityRepo.findPage(after.sortKey(), after.id(), size + 1),
+                size, a -> new PageCursor(a.getCreatedAt(), a.getId())), expand);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ExpandedActivityDto> getPageByContact(Long contactId, String cursor, Integer limit, Set<Expansion> expand) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return expand(paging.page(activityRepo.findPageByContactId(contactId, after.sortKey(), after.id(), size + 1),
+                size, a -> new PageCursor(a.getCreatedAt(), a.getId())), expand);
+    }
+
+    // Oldest due first, the order they need attention in
+    @Transactional(readOnly = true)
+    public CursorPage<ExpandedActivityDto> getPendingPage(String cursor, Integer limit, Set<Expansion> expand) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, false);
+        return expand(paging.page(activityRepo.findPendingPage(OffsetDateTime.now(), after.sortKey(), after.id(), size + 1),
+                size, a -> new PageCursor(a.getDueDate(), a.getId())), expand);
+    }
+
+    @Transactional(readOnly = true)
     public ActivityDto getById(Long id) {
-        Activity a = activityRepo.findById(id)
+        return activityRepo.findDtoById(id)
                 .orElseThrow(() -> new RuntimeException("Activity not found"));
-        return toDto(a);
     }
 
     public ActivityDto create(ActivityDto dto) {
@@ -78,6 +111,17 @@ public class ActivityService {
         activityRepo.deleteById(id);
     }
 
+    private StreamingResponseBody stream(Supplier<Stream<ActivityDto>> query, Set<Expansion> expand) {
+        return expand.isEmpty()
+                ? streamer.stream(query)
+                : streamer.stream(query, rows -> expander.activities(rows, expand));
+    }
+
+    // Wrapped even when nothing is expanded: the relation fields are then left out of the JSON
+    private CursorPage<ExpandedActivityDto> expand(CursorPage<ActivityDto> page, Set<Expansion> expand) {
+        return page.withItems(expander.activities(page.getItems(), expand));
+    }
+
     // --- Manual Mapping ---
     private ActivityDto toDto(Activity a) {
         ActivityDto dto = new ActivityDto();
@@ -1,6 +1,10 @@
 package com.example.crm.service;
 
+import com.example.crm.config.CrmUserDetails;
 import com.example.crm.config.JwtTokenProvider;
+import com.example.crm.config.OpaqueTokenStore;
+import com.example.crm.config.PasswordHashingRejectedException;
+import com.example.crm.config.VerifiedAccessToken;
 import com.example.crm.dto.AuthRequest;
 import com.example.crm.dto.AuthResponse;
 import com.example.crm.dto.RefreshTokenRequest;
@@ -8,10 +12,12 @@ import com.example.crm.dto.UserInfoDto;
 import com.example.crm.model.RefreshToken;
 import com.example.crm.model.User;
 import com.example.crm.model.UserSession;
+import com.example.crm.model.enums.AccessTokenFormat;
 import com.example.crm.repository.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -33,21 +39,40 @@ public class AuthService {
     private final JwtTokenProvider jwtTokenProvider;
     private final RefreshTokenService refreshTokenService;
     private final SessionService sessionService;
+    private final UserStatusCache userStatusCache;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final RevocationRegistry revocationRegistry;
+    // Format issued when the client doesn't ask for one
+    private final AccessTokenFormat defaultTokenFormat;
 
     public AuthService(AuthenticationManager authenticationManager,
                        UserRepository userRepository,
                        PasswordEncoder passwordEncoder,
                        JwtTokenProvider jwtTokenProvider,
                        RefreshTokenService refreshTokenService,
-                       SessionService sessionService) {
+                       SessionService sessionService,
+                       UserStatusCache userStatusCache,
+                       LastLoginRecorder lastLoginRecorder,
+                       RevocationRegistry revocationRegistry,
+                       @Value("${security.access-token.format:JWT}") AccessTokenFormat defaultTokenFormat) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtTokenProvider = jwtTokenProvider;
         this.refreshTokenService = refreshTokenService;
         this.sessionService = sessionService;
+        this.userStatusCache = userStatusCache;
+        this.lastLoginRecorder = lastLoginRecorder;
+        this.revocationRegistry = revocationRegistry;
+        this.defaultTokenFormat = defaultTokenFormat;
     }
 
+    /**
+     * Runs outside a transaction: BCrypt runs on the bounded hashing pool and may queue
+     * there, so no pooled connection is held while waiting for it. Each step that writes
+     * (the re-hash, the session, the refresh token) commits on its own.
+     */
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public AuthResponse login(AuthRequest request, HttpServletRequest httpRequest) {
         try {
             // Authenticate user
@@ -55,25 +80,37 @@ public class AuthService {
                     new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword())
             );
 
-            // Load user details
-            User user = userRepository.findByUsername(request.getUsername())
-                    .orElseThrow(() -> new BadCredentialsException("User not found"));
+            // Reuse the user loaded during authentication
+            User user = ((CrmUserDetails) authentication.getPrincipal()).getUser();
 
             // Check if user is enabled
             if (!user.getIsEnabled()) {
                 throw new BadCredentialsException("User account is disabled");
             }
 
+            // Re-hash passwords stored with a different cost than the calibrated one. The user
+            // is already authenticated, so a saturated pool only defers this to a later login
+            if (passwordEncoder.upgradeEncoding(user.getPasswordHash())) {
+                try {
+                    user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
+                    userRepository.save(user);
+                    log.info("Re-hashed password for user {} with the current BCrypt cost", user.getUsername());
+                } catch (PasswordHashingRejectedException e) {
+                    log.debug("Skipped re-hashing password for user {}: {}", user.getUsername(), e.getMessage());
+                }
+            }
+
             // Create session
             UserSession session = sessionService.createSession(user, httpRequest);
 
-            // Generate tokens
-            String accessToken = jwtTokenProvider.generateAccessToken(user, session.getSessionId());
-            RefreshToken refreshTokenEntity = refreshTokenService.createRefreshToken(user, httpRequest);
+            // Generate tokens; the refresh token is bound to the session it keeps alive
+            AccessTokenFormat format = request.getTokenFormat() != null ? request.getTokenFormat() : defaultTokenFormat;
+            String accessToken = jwtTokenProvider.generateAccessToken(user, session.getSessionId(), format);
+            RefreshToken refreshTokenEntity = refreshTokenService.createRefreshToken(user, session.getSessionId(), httpRequest);
 
-            // Update user last login
-            user.setLastLoginAt(OffsetDateTime.now());
-            userRepository.save(user);
+            // Last login time is informational; write it behind in batches
+            OffsetDateTime loginAt = OffsetDateTime.now();
+            lastLoginRecorder.record(user.getId(), loginAt);
 
             OffsetDateTime issuedAt = OffsetDateTime.now();
             OffsetDateTime expiresAt = jwtTokenProvider.getExpirationFromAccessToken(accessToken);
@@ -87,12 +124,16 @@ public class AuthService {
                     .tokenType("Bearer")
                     .expiresIn(jwtTokenProvider.getAccessTokenValidityInMinutes() * 60)
                     .sessionId(session.getSessionId())
-                    .user(UserInfoDto.fromUser(user))
+                    .user(UserInfoDto.fromUser(user).toBuilder().lastLoginAt(loginAt).build())
                     .issuedAt(issuedAt)
                     .expiresAt(expiresAt)
                     .build();
 
         } catch (AuthenticationException e) {
+            // Hashing for an unknown username (timing-attack mitigation) is wrapped by the provider
+            if (e.getCause() instanceof PasswordHashingRejectedException rejected) {
+                throw rejected;
+            }
             log.warn("Failed login attempt for username: {} from IP: {}", 
                     request.getUsername(), extractIpAddress(httpRequest));
             throw new BadCredentialsException("Invalid username or password");
@@ -113,14 +154,19 @@ public class AuthService {
         // Check if user is still enabled
         if (!user.getIsEnabled()) {
             refreshTokenService.revokeToken(refreshTokenValue);
+            userStatusCache.invalidate(user.getId());
             throw new RuntimeException("User account is disabled");
         }
 
-        // Create new session
-        UserSession session = sessionService.createSession(user, httpRequest);
+        // Keep the token's session when it is still live; only start a new one when it is gone
+        String sessionId = resolveRefreshingSessionId(refreshToken, request, httpRequest);
+        if (!sessionService.extendSession(user, sessionId)) {
+            sessionId = sessionService.createSession(user, httpRequest).getSessionId();
+        }
+        refreshTokenService.bindToSession(refreshToken, sessionId);
 
-        // Generate new access token
-        String accessToken = jwtTokenProvider.generateAccessToken(user, session.getSessionId());
+        // Generate new access token, in the format the client asked for or is already using
+        String accessToken = jwtTokenProvider.generateAccessToken(user, sessionId, resolveRefreshingTokenFormat(request, httpRequest));
 
         OffsetDateTime issuedAt = OffsetDateTime.now();
         OffsetDateTime expiresAt = jwtTokenProvider.getExpirationFromAccessToken(accessToken);
@@ -133,14 +179,61 @@ public class AuthService {
                 .refreshToken(refreshTokenValue) // Keep the same refresh token
                 .tokenType("Bearer")
                 .expiresIn(jwtTokenProvider.getAccessTokenValidityInMinutes() * 60)
-                .sessionId(session.getSessionId())
+                .sessionId(sessionId)
                 .user(UserInfoDto.fromUser(user))
                 .issuedAt(issuedAt)
                 .expiresAt(expiresAt)
                 .build();
     }
 
-    public void logout(String sessionId, String refreshToken) {
+    /**
+     * The session a refresh token may extend: the one it was issued with. A session the
+     * client names (in the request, or through the possibly expired access token being
+     * replaced) must be that one; it is only taken as is for tokens not bound yet.
+     */
+    private String resolveRefreshingSessionId(RefreshToken refreshToken, RefreshTokenRequest request,
+                                              HttpServletRequest httpRequest) {
+        String claimed = request.getSessionId();
+        if (claimed == null) {
+            String authHeader = httpRequest.getHeader("Authorization");
+            if (authHeader != null && authHeader.startsWith("Bearer ")) {
+                claimed = jwtTokenProvider.getSessionIdIgnoringExpiry(authHeader.substring(7)).orElse(null);
+            }
+        }
+        String bound = refreshToken.getSessionId();
+        if (bound == null) {
+            return claimed;
+        }
+        if (claimed != null && !claimed.equals(bound)) {
+            throw new RuntimeException("Refresh token was not issued for this session");
+        }
+        return bound;
+    }
+
+    private AccessTokenFormat resolveRefreshingTokenFormat(RefreshTokenRequest request, HttpServletRequest httpRequest) {
+        if (request.getTokenFormat() != null) {
+            return request.getTokenFormat();
+        }
+        String authHeader = httpRequest.getHeader("Authorization");
+        if (authHeader != null && authHeader.startsWith("Bearer ") && OpaqueTokenStore.isOpaque(authHeader.substring(7))) {
+            return AccessTokenFormat.OPAQUE;
+        }
+        return defaultTokenFormat;
+    }
+
+    public void logout(String sessionId, String refreshToken, String accessToken) {
+        if (accessToken != null) {
+            // Revoke the presented access token itself on every node, and default to its session
+            Optional<VerifiedAccessToken> verified = jwtTokenProvider.verifyAccessToken(accessToken);
+            if (verified.isPresent()) {
+                revocationRegistry.revokeToken(verified.get().getTokenId(), verified.get().getExpiresAt());
+                jwtTokenProvider.revokeStoredAccessToken(accessToken);
+                if (sessionId == null) {
+                    sessionId = verified.get().getSessionId();
+                }
+            }
+        }
+
         if (sessionId != null) {
             sessionService.deactivateSession(sessionId);
         }
@@ -156,12 +249,15 @@ public class AuthService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        // Also drops the user's cached account status on every node
         sessionService.deactivateAllUserSessions(user);
         refreshTokenService.revokeAllUserTokens(user);
 
         log.info("All sessions and tokens revoked for user: {}", username);
     }
 
+    // Like login, hashes without holding a connection; the checks and the insert commit on their own
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public User register(User user) {
         // Check uniqueness
         Optional<User> byUsername = userRepository.findByUsername(user.getUsername());
@@ -194,6 +290,7 @@ public class AuthService {
         return savedUser;
     }
 
+    @Transactional(Transactional.TxType.SUPPORTS)
     public boolean isSessionValid(String sessionId) {
         return sessionService.isSessionValid(sessionId);
     }
@@ -203,6 +300,7 @@ public class AuthService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    @Transactional(Transactional.TxType.SUPPORTS)
     public void updateSessionActivity(String sessionId) {
         sessionService.updateSessionActivity(sessionId);
     }
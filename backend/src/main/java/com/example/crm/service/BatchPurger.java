@@ -0,0 +1,40 @@
+package com.example.crm.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Deletes rows in small batches within a time budget, so cleanup never holds a
+ * long transaction or many row locks at once.
+ */
+@Component
+public class BatchPurger {
+    private final int batchSize;
+    private final long maxMillis;
+
+    public BatchPurger(
+            @Value("${partition.purge.batch-size:1000}") int batchSize,
+            @Value("${partition.purge.max-millis:2000}") long maxMillis
+    ) {
+        this.batchSize = batchSize;
+        this.maxMillis = maxMillis;
+    }
+
+    /**
+     * Run {@code deleteBatch} (given the batch size, returning the rows deleted) until
+     * a batch comes back short or the time budget is used up. Each batch should commit
+     * on its own so no transaction stays open for long. Returns the rows deleted.
+     */
+    public long purge(IntUnaryOperator deleteBatch) {
+        long deadline = System.currentTimeMillis() + maxMillis;
+        long total = 0;
+        int deleted;
+        do {
+            deleted = deleteBatch.applyAsInt(batchSize);
+            total += deleted;
+        } while (deleted == batchSize && System.currentTimeMillis() < deadline);
+        return total;
+    }
+}
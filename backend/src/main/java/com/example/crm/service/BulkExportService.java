@@ -0,0 +1,156 @@
+package com.example.crm.service;
+
+import com.example.crm.model.enums.DataFormat;
+import com.example.crm.model.enums.OpportunityStage;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports whole tables for BI straight from PostgreSQL: {@code COPY (SELECT ...) TO STDOUT}
+ * writes CSV or NDJSON into the response as the server produces it, with no entities,
+ * DTOs or buffering in between, optionally gzipped on the way out.
+ *
+ * Field names match the API DTOs (and what the bulk import accepts). COPY takes no bind
+ * parameters, so filters are rendered into the query, from typed values only.
+ */
+@Service
+@Slf4j
+public class BulkExportService {
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BulkExportService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public enum Dataset {
+        COMPANIES("""
+                SELECT t.id, t.name, t.industry, t.website, t.address_line1 AS "addressLine1",
+                       t.address_line2 AS "addressLine2", t.city, t.state, t.postal_code AS "postalCode", t.country,
+                       t.created_at AS "createdAt", t.updated_at AS "updatedAt"
+                FROM companies t
+                """, "", "t.id", false),
+        CONTACTS("""
+                SELECT t.id, t.company_id AS "companyId", t.first_name AS "firstName", t.last_name AS "lastName",
+                       t.email, t.phone, t.job_title AS "jobTitle", t.created_at AS "createdAt", t.updated_at AS "updatedAt"
+                FROM contacts t
+                """, "", "t.company_id", false),
+        OPPORTUNITIES("""
+                SELECT t.id, t.contact_id AS "contactId", t.title, t.amount, t.stage, t.close_date AS "closeDate",
+                       t.created_at AS "createdAt", t.updated_at AS "updatedAt"
+                FROM opportunities t
+                """, "JOIN contacts c ON c.id = t.contact_id\n", "c.company_id", true),
+        ACTIVITIES("""
+                SELECT t.id, t.contact_id AS "contactId", t.type, t.subject, t.description,
+                       t.activity_date AS "activityDate", t.due_date AS "dueDate", t.completed,
+                       t.created_at AS "createdAt", t.updated_at AS "updatedAt"
+                FROM activities t
+                """, "JOIN contacts c ON c.id = t.contact_id\n", "c.company_id", false);
+
+        private final String select;
+        // Joined only when filtering by company
+        private final String companyJoin;
+        private final String companyColumn;
+        private final boolean hasStage;
+
+        Dataset(String select, String companyJoin, String companyColumn, boolean hasStage) {
+            this.select = select;
+            this.companyJoin = companyJoin;
+            this.companyColumn = companyColumn;
+            this.hasStage = hasStage;
+        }
+
+        public String fileName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        public static Dataset fromName(String name) {
+            for (Dataset dataset : values()) {
+                if (dataset.fileName().equals(name)) {
+                    return dataset;
+                }
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown export: " + name);
+        }
+    }
+
+    /**
+     * Optional filters: created_at within [from, to), the opportunity stage, and the company
+     * (the contact's company for opportunities and activities).
+     */
+    public record Filter(OffsetDateTime from, OffsetDateTime to, OpportunityStage stage, Long companyId) {
+    }
+
+    public StreamingResponseBody export(Dataset dataset, DataFormat format, boolean gzip, Filter filter) {
+        String copySql = copySql(dataset, format, filter);
+        return out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, GZIP_BUFFER_BYTES) : out;
+            long started = System.currentTimeMillis();
+            try {
+                long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+                    try {
+                        return connection.unwrap(PGConnection.class).getCopyAPI().copyOut(copySql, target);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                log.info("Exported {} {} rows as {} in {} ms", rows, dataset.fileName(), format,
+                        System.currentTimeMillis() - started);
+            } finally {
+                // Also releases the gzip deflater's native memory
+                target.close();
+            }
+        };
+    }
+
+    String copySql(Dataset dataset, DataFormat format, Filter filter) {
+        List<String> conditions = new ArrayList<>();
+        if (filter.from() != null) {
+            conditions.add("t.created_at >= " + timestamp(filter.from()));
+        }
+        if (filter.to() != null) {
+            conditions.add("t.created_at < " + timestamp(filter.to()));
+        }
+        if (filter.stage() != null) {
+            if (!dataset.hasStage) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "stage only applies to opportunities");
+            }
+            conditions.add("t.stage = '" + filter.stage().name() + "'");
+        }
+        if (filter.companyId() != null) {
+            conditions.add(dataset.companyColumn + " = " + filter.companyId());
+        }
+
+        String query = dataset.select
+                + (filter.companyId() != null ? dataset.companyJoin : "")
+                + (conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + "\n")
+                + "ORDER BY t.id";
+        if (format == DataFormat.CSV) {
+            return "COPY (" + query + ") TO STDOUT (FORMAT csv, HEADER)";
+        }
+        // One JSON document per line. CSV mode with quote and delimiter characters that JSON
+        // text never contains unescaped writes each line exactly as row_to_json produced it
+        return "COPY (SELECT row_to_json(r) FROM (" + query + ") r) TO STDOUT (FORMAT csv, QUOTE e'\\x01', DELIMITER e'\\x02')";
+    }
+
+    // OffsetDateTime.toString() is ISO-8601: digits, '-', ':', '.', 'T', 'Z' and '+' only
+    private static String timestamp(OffsetDateTime value) {
+        return "'" + value + "'::timestamptz";
+    }
+}
@@ -0,0 +1,538 @@
+package com.example.crm.service;
+
+import com.example.crm.dto.ImportReport;
+import com.example.crm.model.enums.DataFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Loads companies and contacts in bulk from CSV or NDJSON.
+ *
+ * Rows are read one at a time, validated, and written straight into a temporary
+ * staging table through COPY, so memory stays flat however large the file. One SQL
+ * statement then merges the staging table into the real one: contacts are upserted
+ * on email, companies are matched on their name (case-insensitively). Everything
+ * happens in one transaction, so a failed import leaves nothing behind. Imports of
+ * the same kind are serialized with an advisory lock.
+ *
+ * Contacts reference their company by {@code companyId} or {@code companyName},
+ * resolved against an in-memory map of the companies table built once per import.
+ */
+@Service
+@Slf4j
+public class BulkImportService {
+    // First key of the two-int advisory lock space, to stay clear of other advisory lock users
+    private static final int ADVISORY_LOCK_NAMESPACE = 0x494D5054;
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final CsvMapper CSV_MAPPER = CsvMapper.builder()
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+            .enable(CsvParser.Feature.IGNORE_TRAILING_UNMAPPABLE)
+            .build();
+
+    private static final List<Column> COMPANY_COLUMNS = List.of(
+            new Column("name", 150, true),
+            new Column("industry", 100, false),
+            new Column("website", 255, false),
+            new Column("address_line1", 255, false),
+            new Column("address_line2", 255, false),
+            new Column("city", 100, false),
+            new Column("state", 100, false),
+            new Column("postal_code", 20, false),
+            new Column("country", 100, false));
+    private static final List<Column> CONTACT_COLUMNS = List.of(
+            new Column("first_name", 100, true),
+            new Column("last_name", 100, true),
+            new Column("email", 255, true),
+            new Column("phone", 50, false),
+            new Column("job_title", 100, false));
+
+    private static final String COMPANY_STAGING_SQL = """
+            CREATE TEMP TABLE company_import (
+                row_number bigint, name text, industry text, website text, address_line1 text,
+                address_line2 text, city text, state text, postal_code text, country text
+            ) ON COMMIT DROP
+            """;
+    // Merge statements return (inserted, updated, distinct keys staged). The last row for a key
+    // wins, blank optional fields keep the stored value, and rows that change nothing aren't rewritten
+    private static final String COMPANY_MERGE_SQL = """
+            WITH latest AS (
+                SELECT DISTINCT ON (lower(name)) * FROM company_import ORDER BY lower(name), row_number DESC
+            ), updated AS (
+                UPDATE companies c SET
+                    industry = COALESCE(l.industry, c.industry),
+                    website = COALESCE(l.website, c.website),
+                    address_line1 = COALESCE(l.address_line1, c.address_line1),
+                    address_line2 = COALESCE(l.address_line2, c.address_line2),
+                    city = COALESCE(l.city, c.city),
+                    state = COALESCE(l.state, c.state),
+                    postal_code = COALESCE(l.postal_code, c.postal_code),
+                    country = COALESCE(l.country, c.country),
+                    updated_at = now()
+                FROM latest l
+                WHERE lower(c.name) = lower(l.name)
+                  AND (c.industry, c.website, c.address_line1, c.address_line2, c.city, c.state, c.postal_code, c.country)
+                      IS DISTINCT FROM (COALESCE(l.industry, c.industry), COALESCE(l.website, c.website),
+                                        COALESCE(l.address_line1, c.address_line1), COALESCE(l.address_line2, c.address_line2),
+                                        COALESCE(l.city, c.city), COALESCE(l.state, c.state),
+                                        COALESCE(l.postal_code, c.postal_code), COALESCE(l.country, c.country))
+                RETURNING lower(c.name) AS name_key
+            ), inserted AS (
+                INSERT INTO companies (name, industry, website, address_line1, address_line2, city, state,
+                                       postal_code, country, created_at, updated_at)
+                SELECT name, industry, website, address_line1, address_line2, city, state, postal_code, country,
+                       now(), now()
+                FROM latest l
+                WHERE NOT EXISTS (SELECT 1 FROM companies c WHERE lower(c.name) = lower(l.name))
+                RETURNING 1
+            )
+            SELECT (SELECT count(*) FROM inserted), (SELECT count(DISTINCT name_key) FROM updated),
+                   (SELECT count(*) FROM latest)
+            """;
+    private static final String CONTACT_STAGING_SQL = """
+            CREATE TEMP TABLE contact_import (
+                row_number bigint, first_name text, last_name text, email text, phone text, job_title text,
+                company_id bigint
+            ) ON COMMIT DROP
+            """;
+    private static final String CONTACT_MERGE_SQL = """
+            WITH latest AS (
+                SELECT DISTINCT ON (email) * FROM contact_import ORDER BY email, row_number DESC
+            ), merged AS (
+                INSERT INTO contacts (first_name, last_name, email, phone, job_title, company_id, created_at, updated_at)
+                SELECT first_name, last_name, email, phone, job_title, company_id, now(), now()
+                FROM latest
+                ON CONFLICT (email) DO UPDATE SET
+                    first_name = EXCLUDED.first_name,
+                    last_name = EXCLUDED.last_name,
+                    phone = COALESCE(EXCLUDED.phone, contacts.phone),
+                    job_title = COALESCE(EXCLUDED.job_title, contacts.job_title),
+                    company_id = COALESCE(EXCLUDED.company_id, contacts.company_id),
+                    updated_at = EXCLUDED.updated_at
+                WHERE (contacts.first_name, contacts.last_name, contacts.phone, contacts.job_title, contacts.company_id)
+                      IS DISTINCT FROM (EXCLUDED.first_name, EXCLUDED.last_name,
+                                        COALESCE(EXCLUDED.phone, contacts.phone),
+                                        COALESCE(EXCLUDED.job_title, contacts.job_title),
+                                        COALESCE(EXCLUDED.company_id, contacts.company_id))
+                RETURNING xmax = 0 AS inserted
+            )
+            SELECT count(*) FILTER (WHERE inserted), count(*) FILTER (WHERE NOT inserted), (SELECT count(*) FROM latest)
+            FROM merged
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxReportedErrors;
+    private final String mergeWorkMem;
+
+    public BulkImportService(
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${import.max-reported-errors:1000}") int maxReportedErrors,
+            @Value("${import.merge-work-mem:256MB}") String mergeWorkMem
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxReportedErrors = maxReportedErrors;
+        this.mergeWorkMem = mergeWorkMem;
+    }
+
+    public ImportReport importCompanies(InputStream in, DataFormat format) {
+        return load("companies", "company_import", COMPANY_STAGING_SQL, COMPANY_MERGE_SQL, in, format,
+                connection -> row -> columnValues(row, COMPANY_COLUMNS, 0));
+    }
+
+    public ImportReport importContacts(InputStream in, DataFormat format) {
+        return load("contacts", "contact_import", CONTACT_STAGING_SQL, CONTACT_MERGE_SQL, in, format, connection -> {
+            CompanyReferences companies = CompanyReferences.load(connection);
+            return row -> {
+                Object[] values = columnValues(row, CONTACT_COLUMNS, 1);
+                if (!EMAIL.matcher((String) values[2]).matches()) {
+                    throw new InvalidRowException("email is not a valid address");
+                }
+                values[CONTACT_COLUMNS.size()] = companies.resolve(row.get("companyid"), row.get("companyname"));
+                return values;
+            };
+        });
+    }
+
+    private ImportReport load(String target, String stagingTable, String stagingSql, String mergeSql,
+                              InputStream in, DataFormat format, ConverterFactory converterFactory) {
+        long started = System.currentTimeMillis();
+        ImportReport report = transactionTemplate.execute(status -> jdbcTemplate.execute((ConnectionCallback<ImportReport>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_xact_lock(" + ADVISORY_LOCK_NAMESPACE + ", hashtext('" + target + "'))");
+                statement.execute(stagingSql);
+            }
+            // Anything the converter needs from the database is read now: the connection is busy once COPY starts
+            RowConverter converter = converterFactory.prepare(connection);
+
+            long rows = 0;
+            long accepted = 0;
+            Rejections rejections = new Rejections(maxReportedErrors);
+            CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI()
+                    .copyIn("COPY " + stagingTable + " FROM STDIN (FORMAT csv)");
+            try (RowReader reader = RowReader.open(in, format, objectMapper)) {
+                CopyWriter writer = new CopyWriter(copy);
+                while (true) {
+                    Map<String, String> row;
+                    try {
+                        row = reader.next();
+                    } catch (InvalidRowException e) {
+                        rejections.add(++rows, e.getMessage());
+                        continue;
+                    }
+                    if (row == null) {
+                        break;
+                    }
+                    rows++;
+                    try {
+                        writer.row(rows, converter.convert(row));
+                        accepted++;
+                    } catch (InvalidRowException e) {
+                        rejections.add(rows, e.getMessage());
+                    }
+                }
+                writer.finish();
+            } catch (IOException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Could not read the import: " + e.getMessage());
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+
+            log.debug("Staged {} {} rows in {} ms", accepted, target, System.currentTimeMillis() - started);
+            long[] merged = new long[3];
+            try (Statement statement = connection.createStatement()) {
+                // Statistics for the merge plan, and room to sort the staged rows in memory
+                statement.execute("ANALYZE " + stagingTable);
+                statement.execute("SET LOCAL work_mem = '" + mergeWorkMem + "'");
+                try (ResultSet rs = statement.executeQuery(mergeSql)) {
+                    rs.next();
+                    merged[0] = rs.getLong(1);
+                    merged[1] = rs.getLong(2);
+                    merged[2] = rs.getLong(3);
+                }
+            }
+            return new ImportReport(rows, merged[0], merged[1], merged[2] - merged[0] - merged[1],
+                    accepted - merged[2], rejections.count, rejections.errors, System.currentTimeMillis() - started);
+        }));
+        log.info("Imported {}: {} rows, {} inserted, {} updated, {} rejected in {} ms", target, report.getRows(),
+                report.getInserted(), report.getUpdated(), report.getRejected(), report.getElapsedMillis());
+        return report;
+    }
+
+    // Values of the given columns in staging table order, validated; extra slots are left for the caller
+    private static Object[] columnValues(Map<String, String> row, List<Column> columns, int extraSlots) {
+        Object[] values = new Object[columns.size() + extraSlots];
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            String value = row.get(column.key());
+            if (value == null) {
+                if (column.required()) {
+                    throw new InvalidRowException(column.name() + " is required");
+                }
+            } else if (value.length() > column.maxLength()) {
+                throw new InvalidRowException(column.name() + " is longer than " + column.maxLength() + " characters");
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+
+    // Header and field names compare without case, underscores, dashes or spaces: first_name = firstName
+    private static String normalizeKey(String key) {
+        StringBuilder normalized = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c != '_' && c != '-' && c != ' ') {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private record Column(String name, int maxLength, boolean required) {
+        String key() {
+            return normalizeKey(name);
+        }
+    }
+
+    // Turns a row into staging table values after the leading row number, or rejects it
+    @FunctionalInterface
+    private interface RowConverter {
+        Object[] convert(Map<String, String> row);
+    }
+
+    @FunctionalInterface
+    private interface ConverterFactory {
+        RowConverter prepare(Connection connection) throws SQLException;
+    }
+
+    private static final class Rejections {
+        private final int maxReported;
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long count;
+
+        Rejections(int maxReported) {
+            this.maxReported = maxReported;
+        }
+
+        void add(long row, String message) {
+            count++;
+            if (errors.size() < maxReported) {
+                errors.add(new ImportReport.RowError(row, message));
+            }
+        }
+    }
+
+    private static final class InvalidRowException extends RuntimeException {
+        InvalidRowException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * Yields rows as maps of normalized field name to trimmed, non-blank value.
+     */
+    private interface RowReader extends AutoCloseable {
+        Map<String, String> next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+
+        static RowReader open(InputStream in, DataFormat format, ObjectMapper objectMapper) throws IOException {
+            return format == DataFormat.CSV ? csv(in) : ndjson(in, objectMapper);
+        }
+
+        private static RowReader csv(InputStream in) throws IOException {
+            MappingIterator<Map<String, String>> iterator = CSV_MAPPER.readerForMapOf(String.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(in);
+            return new RowReader() {
+                private long failedAt = -1;
+
+                // A malformed record only rejects that row, like a malformed NDJSON line
+                @Override
+                public Map<String, String> next() throws IOException {
+                    Map<String, String> values;
+                    try {
+                        if (!iterator.hasNextValue()) {
+                            return null;
+                        }
+                        values = iterator.nextValue();
+                    } catch (JsonProcessingException e) {
+                        long offset = iterator.getCurrentLocation().getCharOffset();
+                        if (offset == failedAt) {
+                            // The parser can't get past it, so nothing after it is readable either
+                            throw e;
+                        }
+                        failedAt = offset;
+                        throw new InvalidRowException("malformed CSV record: " + e.getOriginalMessage());
+                    }
+                    Map<String, String> row = new HashMap<>();
+                    values.forEach((key, value) -> row.put(normalizeKey(key), blankToNull(value)));
+                    return row;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    iterator.close();
+                }
+            };
+        }
+
+        // Each line parses on its own, so one malformed line only rejects that row
+        private static RowReader ndjson(InputStream in, ObjectMapper objectMapper) {
+            BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            return new RowReader() {
+                @Override
+                public Map<String, String> next() throws IOException {
+                    String line;
+                    do {
+                        line = lines.readLine();
+                        if (line == null) {
+                            return null;
+                        }
+                    } while (line.isBlank());
+
+                    Map<?, ?> object;
+                    try {
+                        object = objectMapper.readValue(line, Map.class);
+                    } catch (JsonProcessingException e) {
+                        throw new InvalidRowException("not a JSON object");
+                    }
+                    if (object == null) {
+                        throw new InvalidRowException("not a JSON object");
+                    }
+                    Map<String, String> row = new HashMap<>();
+                    object.forEach((key, value) -> row.put(normalizeKey(key.toString()),
+                            value == null ? null : blankToNull(value.toString())));
+                    return row;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    lines.close();
+                }
+            };
+        }
+    }
+
+    /**
+     * Buffers rows as COPY csv text and sends them in large chunks. Strings are always
+     * quoted so an empty string stays distinct from an unquoted, empty NULL.
+     */
+    private static final class CopyWriter {
+        private final CopyIn copy;
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 1024);
+
+        CopyWriter(CopyIn copy) {
+            this.copy = copy;
+        }
+
+        void row(long rowNumber, Object[] values) throws SQLException {
+            buffer.append(rowNumber);
+            for (Object value : values) {
+                buffer.append(',');
+                if (value instanceof String s) {
+                    buffer.append('"');
+                    for (int i = 0; i < s.length(); i++) {
+                        char c = s.charAt(i);
+                        if (c == '"') {
+                            buffer.append('"');
+                        }
+                        buffer.append(c);
+                    }
+                    buffer.append('"');
+                } else if (value != null) {
+                    buffer.append(value);
+                }
+            }
+            buffer.append('\n');
+            if (buffer.length() >= COPY_BUFFER_CHARS) {
+                flush();
+            }
+        }
+
+        void finish() throws SQLException {
+            flush();
+            copy.endCopy();
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Company ids, sorted for binary search, and a lowercased name to id map; a name
+     * shared by several companies maps to {@link #AMBIGUOUS}.
+     */
+    private static final class CompanyReferences {
+        private static final long AMBIGUOUS = -1;
+
+        private final long[] ids;
+        private final Map<String, Long> idsByName;
+
+        private CompanyReferences(long[] ids, Map<String, Long> idsByName) {
+            this.ids = ids;
+            this.idsByName = idsByName;
+        }
+
+        static CompanyReferences load(Connection connection) throws SQLException {
+            long[] ids = new long[1024];
+            int count = 0;
+            Map<String, Long> idsByName = new HashMap<>();
+            try (Statement statement = connection.createStatement()) {
+                statement.setFetchSize(10_000);
+                try (ResultSet rs = statement.executeQuery("SELECT id, name FROM companies")) {
+                    while (rs.next()) {
+                        long id = rs.getLong(1);
+                        if (count == ids.length) {
+                            ids = Arrays.copyOf(ids, count * 2);
+                        }
+                        ids[count++] = id;
+                        idsByName.merge(rs.getString(2).toLowerCase(Locale.ROOT), id, (a, b) -> AMBIGUOUS);
+                    }
+                }
+            }
+            long[] sorted = Arrays.copyOf(ids, count);
+            Arrays.sort(sorted);
+            return new CompanyReferences(sorted, idsByName);
+        }
+
+        Long resolve(String idText, String name) {
+            if (idText != null) {
+                long id;
+                try {
+                    id = Long.parseLong(idText);
+                } catch (NumberFormatException e) {
+                    throw new InvalidRowException("companyId is not a number");
+                }
+                if (Arrays.binarySearch(ids, id) < 0) {
+                    throw new InvalidRowException("company " + id + " does not exist");
+                }
+                return id;
+            }
+            if (name != null) {
+                Long id = idsByName.get(name.toLowerCase(Locale.ROOT));
+                if (id == null) {
+                    throw new InvalidRowException("company '" + name + "' does not exist");
+                }
+                if (id == AMBIGUOUS) {
+                    throw new InvalidRowException("more than one company is named '" + name + "'");
+                }
+                return id;
+            }
+            return null;
+        }
+    }
+}
@@ -1,34 +1,44 @@
 package com.example.crm.service;
 
 import com.example.crm.dto.CompanyDto;
+import com.example.crm.dto.CursorPage;
 import com.example.crm.model.Company;
 import com.example.crm.repository.CompanyRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import jakarta.transaction.Transactional;
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class CompanyService {
     private final CompanyRepository companyRepo;
+    private final CursorPaging paging;
+    private final JsonArrayStreamer streamer;
 
-    public CompanyService(CompanyRepository companyRepo) {
+    public CompanyService(CompanyRepository companyRepo, CursorPaging paging, JsonArrayStreamer streamer) {
         this.companyRepo = companyRepo;
+        this.paging = paging;
+        this.streamer = streamer;
     }
 
-    public List<CompanyDto> getAll() {
-        return companyRepo.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    public StreamingResponseBody streamAll() {
+        return streamer.stream(() -> companyRepo.streamAll());
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<CompanyDto> getPage(String cursor, Integer limit) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return paging.page(companyRepo.findPage(after.sortKey(), after.id(), size + 1),
+                size, c -> new PageCursor(c.getCreatedAt(), c.getId()));
+    }
+
+    @Transactional(readOnly = true)
     public CompanyDto getById(Long id) {
-        Company c = companyRepo.findById(id)
+        return companyRepo.findDtoById(id)
                 .orElseThrow(() -> new RuntimeException("Company not found"));
-        return toDto(c);
     }
 
     public CompanyDto create(CompanyDto dto) {
@@ -1,44 +1,68 @@
 package com.example.crm.service;
 
 import com.example.crm.dto.ContactDto;
+import com.example.crm.dto.CursorPage;
+import com.example.crm.dto.ExpandedContactDto;
 import com.example.crm.model.Company;
 import com.example.crm.model.Contact;
+import com.example.crm.model.enums.Expansion;
 import com.example.crm.repository.CompanyRepository;
 import com.example.crm.repository.ContactRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import jakarta.transaction.Transactional;
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class ContactService {
     private final ContactRepository contactRepo;
     private final CompanyRepository companyRepo;
+    private final CursorPaging paging;
+    private final JsonArrayStreamer streamer;
+    private final RelationExpander expander;
 
-    public ContactService(ContactRepository contactRepo, CompanyRepository companyRepo) {
+    public ContactService(ContactRepository contactRepo, CompanyRepository companyRepo,
+                          CursorPaging paging, JsonArrayStreamer streamer, RelationExpander expander) {
         this.contactRepo = contactRepo;
         this.companyRepo = companyRepo;
+        this.paging = paging;
+        this.streamer = streamer;
+        this.expander = expander;
     }
 
-    public List<ContactDto> getAll() {
-        return contactRepo.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    public StreamingResponseBody streamAll(Set<Expansion> expand) {
+        return stream(() -> contactRepo.streamAll(), expand);
     }
 
-    public List<ContactDto> getByCompany(Long companyId) {
-        return contactRepo.findByCompanyId(companyId).stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    public StreamingResponseBody streamByCompany(Long companyId, Set<Expansion> expand) {
+        return stream(() -> contactRepo.streamByCompanyId(companyId), expand);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<ExpandedContactDto> getPage(String cursor, Integer limit, Set<Expansion> expand) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return expand(paging.page(contactRepo.findPage(after.sortKey(), after.id(), size + 1),
+                size, ContactService::cursorOf), expand);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ExpandedContactDto> getPageByCompany(Long companyId, String cursor, Integer limit, Set<Expansion> expand) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return expand(paging.page(contactRepo.findPageByCompanyId(companyId, after.sortKey(), after.id(), size + 1),
+                size, ContactService::cursorOf), expand);
+    }
+
+    @Transactional(readOnly = true)
     public ContactDto getById(Long id) {
-        Contact c = contactRepo.findById(id)
+        return contactRepo.findDtoById(id)
                 .orElseThrow(() -> new RuntimeException("Contact not found"));
-        return toDto(c);
     }
 
     public ContactDto create(ContactDto dto) {
@@ -71,6 +95,21 @@ public class ContactService {
         contactRepo.deleteById(id);
     }
 
+    private StreamingResponseBody stream(Supplier<Stream<ContactDto>> query, Set<Expansion> expand) {
+        return expand.isEmpty()
+                ? streamer.stream(query)
+                : streamer.stream(query, rows -> expander.contacts(rows, expand));
+    }
+
+    // Wrapped even when nothing is expanded: the relation fields are then left out of the JSON
+    private CursorPage<ExpandedContactDto> expand(CursorPage<ContactDto> page, Set<Expansion> expand) {
+        return page.withItems(expander.contacts(page.getItems(), expand));
+    }
+
+    private static PageCursor cursorOf(ContactDto e) {
+        return new PageCursor(e.getCreatedAt(), e.getId());
+    }
+
     // --- Manual Mapping ---
     private ContactDto toDto(Contact c) {
         ContactDto dto = new ContactDto();
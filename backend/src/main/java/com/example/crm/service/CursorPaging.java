@@ -0,0 +1,51 @@
+package com.example.crm.service;
+
+import com.example.crm.dto.CursorPage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Shared plumbing for the keyset-paginated list endpoints: page size limits, cursor
+ * decoding and building the page from a repository result fetched with one extra row.
+ */
+@Component
+public class CursorPaging {
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public CursorPaging(
+            @Value("${pagination.default-limit:50}") int defaultLimit,
+            @Value("${pagination.max-limit:200}") int maxLimit
+    ) {
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    /**
+     * The requested page size, defaulted and clamped to [1, max-limit].
+     */
+    public int limit(Integer requested) {
+        if (requested == null) {
+            return defaultLimit;
+        }
+        return Math.max(1, Math.min(requested, maxLimit));
+    }
+
+    public PageCursor cursor(String token, boolean descending) {
+        return token == null || token.isBlank() ? PageCursor.start(descending) : PageCursor.decode(token);
+    }
+
+    /**
+     * Build a page from up to {@code limit + 1} rows; the extra row only signals that
+     * another page follows.
+     */
+    public <T> CursorPage<T> page(List<T> rows, int limit, Function<T, PageCursor> cursorOf) {
+        boolean hasMore = rows.size() > limit;
+        List<T> pageRows = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? cursorOf.apply(pageRows.get(limit - 1)).encode() : null;
+        return new CursorPage<>(List.copyOf(pageRows), nextCursor, limit);
+    }
+}
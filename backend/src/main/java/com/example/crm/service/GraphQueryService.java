@@ -0,0 +1,213 @@
+package com.example.crm.service;
+
+import com.example.crm.dto.ActivityDto;
+import com.example.crm.dto.CompanyDto;
+import com.example.crm.dto.ContactDto;
+import com.example.crm.dto.CursorPage;
+import com.example.crm.dto.OpportunityDto;
+import com.example.crm.repository.ActivityRepository;
+import com.example.crm.repository.CompanyRepository;
+import com.example.crm.repository.ContactRepository;
+import com.example.crm.repository.OpportunityRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reads behind the GraphQL API. Relations are loaded for a whole batch of parent rows at
+ * once: each method takes every parent resolved at one level of a request and returns the
+ * related rows, from a single {@code IN (...)} query. Child lists hold at most
+ * {@code first} rows per parent, counted in the query (up to
+ * {@code graphql.related.max-size}), so a parent with thousands of children costs no more
+ * than the limit.
+ */
+@Service
+@Transactional(readOnly = true)
+public class GraphQueryService {
+    private final CompanyRepository companyRepo;
+    private final ContactRepository contactRepo;
+    private final OpportunityRepository oppRepo;
+    private final ActivityRepository activityRepo;
+    private final CursorPaging paging;
+    private final int defaultRelatedSize;
+    private final int maxRelatedSize;
+
+    public GraphQueryService(CompanyRepository companyRepo, ContactRepository contactRepo,
+                             OpportunityRepository oppRepo, ActivityRepository activityRepo, CursorPaging paging,
+                             @Value("${graphql.related.default-size:20}") int defaultRelatedSize,
+                             @Value("${graphql.related.max-size:100}") int maxRelatedSize) {
+        this.companyRepo = companyRepo;
+        this.contactRepo = contactRepo;
+        this.oppRepo = oppRepo;
+        this.activityRepo = activityRepo;
+        this.paging = paging;
+        this.defaultRelatedSize = defaultRelatedSize;
+        this.maxRelatedSize = maxRelatedSize;
+    }
+
+    /**
+     * One parent's child list, limited to its first {@code first} rows.
+     */
+    public record Related(Long parentId, int first) {
+    }
+
+    public Related related(Long parentId, Integer first) {
+        return new Related(parentId, relatedSize(first));
+    }
+
+    /**
+     * The requested child list size, defaulted and clamped like a page size.
+     */
+    public int relatedSize(Integer first) {
+        return first == null ? defaultRelatedSize : Math.max(1, Math.min(first, maxRelatedSize));
+    }
+
+    // --- Roots ---
+
+    public CompanyDto company(Long id) {
+        return companyRepo.findDtoById(id).orElse(null);
+    }
+
+    public ContactDto contact(Long id) {
+        return contactRepo.findDtoById(id).orElse(null);
+    }
+
+    public OpportunityDto opportunity(Long id) {
+        return oppRepo.findDtoById(id).orElse(null);
+    }
+
+    public ActivityDto activity(Long id) {
+        return activityRepo.findDtoById(id).orElse(null);
+    }
+
+    public CursorPage<CompanyDto> companies(String cursor, Integer limit) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return paging.page(companyRepo.findPage(after.sortKey(), after.id(), size + 1),
+                size, c -> new PageCursor(c.getCreatedAt(), c.getId()));
+    }
+
+    public CursorPage<ContactDto> contacts(String cursor, Integer limit) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return paging.page(contactRepo.findPage(after.sortKey(), after.id(), size + 1),
+                size, c -> new PageCursor(c.getCreatedAt(), c.getId()));
+    }
+
+    public CursorPage<OpportunityDto> opportunities(String cursor, Integer limit) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return paging.page(oppRepo.findPage(after.sortKey(), after.id(), size + 1),
+                size, o -> new PageCursor(o.getCreatedAt(), o.getId()));
+    }
+
+    public CursorPage<ActivityDto> activities(String cursor, Integer limit) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return paging.page(activityRepo.findPage(after.sortKey(), after.id(), size + 1),
+                size, a -> new PageCursor(a.getCreatedAt(), a.getId()));
+    }
+
+    // --- Batched relations ---
+
+    public List<CompanyDto> companiesOf(List<ContactDto> contacts) {
+        Set<Long> ids = ids(contacts, ContactDto::getCompanyId);
+        Map<Long, CompanyDto> byId = ids.isEmpty()
+                ? Map.of()
+                : index(companyRepo.findDtosByIdIn(ids), CompanyDto::getId);
+        return lookup(contacts, ContactDto::getCompanyId, byId);
+    }
+
+    public List<ContactDto> contactsOf(List<Long> contactIds) {
+        Set<Long> ids = ids(contactIds, Function.identity());
+        Map<Long, ContactDto> byId = ids.isEmpty()
+                ? Map.of()
+                : index(contactRepo.findDtosByIdIn(ids), ContactDto::getId);
+        return lookup(contactIds, Function.identity(), byId);
+    }
+
+    public Map<Related, List<ContactDto>> contactsOfCompanies(Set<Related> companies) {
+        Map<Long, List<ContactDto>> byCompany = group(
+                contactRepo.findFirstDtosByCompanyIdIn(ids(companies, Related::parentId), first(companies)),
+                ContactDto::getCompanyId);
+        return children(companies, byCompany);
+    }
+
+    public Map<Related, List<OpportunityDto>> opportunitiesOfContacts(Set<Related> contacts) {
+        Map<Long, List<OpportunityDto>> byContact = group(
+                oppRepo.findFirstDtosByContactIdIn(ids(contacts, Related::parentId), first(contacts)),
+                OpportunityDto::getContactId);
+        return children(contacts, byContact);
+    }
+
+    public Map<Related, List<ActivityDto>> activitiesOfContacts(Set<Related> contacts) {
+        Map<Long, List<ActivityDto>> byContact = group(
+                activityRepo.findFirstDtosByContactIdIn(ids(contacts, Related::parentId), first(contacts)),
+                ActivityDto::getContactId);
+        return children(contacts, byContact);
+    }
+
+    private static <T> Set<Long> ids(Collection<T> rows, Function<T, Long> key) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (T row : rows) {
+            Long id = key.apply(row);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static <T> Map<Long, T> index(List<T> rows, Function<T, Long> id) {
+        Map<Long, T> byId = new HashMap<>();
+        for (T row : rows) {
+            byId.put(id.apply(row), row);
+        }
+        return byId;
+    }
+
+    // Keeps the query's order within each parent
+    private static <T> Map<Long, List<T>> group(List<T> rows, Function<T, Long> parentId) {
+        Map<Long, List<T>> byParent = new HashMap<>();
+        for (T row : rows) {
+            byParent.computeIfAbsent(parentId.apply(row), k -> new ArrayList<>()).add(row);
+        }
+        return byParent;
+    }
+
+    private static <P, T> List<T> lookup(List<P> parents, Function<P, Long> foreignKey, Map<Long, T> byId) {
+        List<T> related = new ArrayList<>(parents.size());
+        for (P parent : parents) {
+            Long id = foreignKey.apply(parent);
+            related.add(id == null ? null : byId.get(id));
+        }
+        return related;
+    }
+
+    // Parents of one batch normally ask for the same size; the query fetches the largest
+    private static int first(Set<Related> parents) {
+        int first = 0;
+        for (Related parent : parents) {
+            first = Math.max(first, parent.first());
+        }
+        return first;
+    }
+
+    private static <T> Map<Related, List<T>> children(Set<Related> parents, Map<Long, List<T>> byParent) {
+        Map<Related, List<T>> children = new HashMap<>();
+        for (Related parent : parents) {
+            List<T> rows = byParent.getOrDefault(parent.parentId(), List.of());
+            children.put(parent, rows.size() > parent.first() ? rows.subList(0, parent.first()) : rows);
+        }
+        return children;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.crm.service;
+
+/**
+ * Thrown when a pagination cursor from the client cannot be decoded.
+ * Mapped to 400 by GlobalExceptionHandler.
+ */
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.crm.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a query result to the response as a JSON array one row at a time.
+ *
+ * The rows come from a repository {@link Stream} of DTO projections (a forward-only
+ * cursor read with a fetch size) inside a read-only transaction that lives as long as
+ * the response is being written. Each row is handed to a Jackson generator and nothing
+ * is kept in the persistence context, so heap use stays flat however many rows there
+ * are. Rows are written (and the output flushed) in batches of
+ * {@code streaming.batch-size}, which is also the unit for per-batch lookups such as
+ * relation expansion.
+ */
+@Component
+@Slf4j
+public class JsonArrayStreamer {
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int batchSize;
+
+    public JsonArrayStreamer(
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${streaming.batch-size:500}") int batchSize
+    ) {
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * A response body that runs {@code query} when the response is written and
+     * serializes every row it returns.
+     */
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> query) {
+        return stream(query, rows -> rows);
+    }
+
+    /**
+     * Like {@link #stream(Supplier)}, but each batch of rows is passed through
+     * {@code batchMapper} and what it returns is written instead.
+     */
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> query, Function<List<T>, List<?>> batchMapper) {
+        return out -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+            // A failure halfway must leave the array unterminated, not close it into a valid-looking one
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            try {
+                long rows = readOnlyTransaction.execute(status -> {
+                    try (Stream<T> stream = query.get()) {
+                        return write(generator, stream.iterator(), batchMapper);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                log.debug("Streamed {} rows", rows);
+            } finally {
+                generator.close();
+            }
+        };
+    }
+
+    private <T> long write(JsonGenerator generator, Iterator<T> rows,
+                           Function<List<T>, List<?>> batchMapper) throws IOException {
+        long count = 0;
+        List<T> batch = new ArrayList<>(batchSize);
+        generator.writeStartArray();
+        while (rows.hasNext()) {
+            batch.add(rows.next());
+            count++;
+            if (batch.size() == batchSize || !rows.hasNext()) {
+                for (Object row : batchMapper.apply(batch)) {
+                    generator.writeObject(row);
+                }
+                batch.clear();
+                generator.flush();
+            }
+        }
+        generator.writeEndArray();
+        return count;
+    }
+}
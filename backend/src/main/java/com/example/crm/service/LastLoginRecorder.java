@@ -0,0 +1,78 @@
+package com.example.crm.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Background writer for users.last_login_at. The timestamp is informational, so
+ * logins only record it here and a scheduled flush writes all pending values in a
+ * single multi-row UPDATE instead of one UPDATE per login.
+ */
+@Component
+@Slf4j
+public class LastLoginRecorder {
+    private static final String FLUSH_SQL = """
+            UPDATE users u
+            SET last_login_at = to_timestamp(v.login_ms / 1000.0)
+            FROM unnest(?::bigint[], ?::bigint[]) AS v(user_id, login_ms)
+            WHERE u.id = v.user_id
+              AND (u.last_login_at IS NULL OR u.last_login_at < to_timestamp(v.login_ms / 1000.0))
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void record(Long userId, OffsetDateTime loginAt) {
+        pending.merge(userId, loginAt.toInstant().toEpochMilli(), Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.last-login.flush-interval-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Long> userIds = new ArrayList<>();
+        List<Long> loginTimes = new ArrayList<>();
+        for (Long userId : new ArrayList<>(pending.keySet())) {
+            Long loginAt = pending.remove(userId);
+            if (loginAt != null) {
+                userIds.add(userId);
+                loginTimes.add(loginAt);
+            }
+        }
+
+        try {
+            int updated = jdbcTemplate.update(FLUSH_SQL, ps -> {
+                Connection connection = ps.getConnection();
+                ps.setArray(1, connection.createArrayOf("bigint", userIds.toArray()));
+                ps.setArray(2, connection.createArrayOf("bigint", loginTimes.toArray()));
+            });
+            log.debug("Flushed last login time for {} users ({} rows updated)", userIds.size(), updated);
+        } catch (Exception e) {
+            log.error("Failed to flush last login time for {} users, will retry", userIds.size(), e);
+            for (int i = 0; i < userIds.size(); i++) {
+                pending.merge(userIds.get(i), loginTimes.get(i), Math::max);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,463 @@
+package com.example.crm.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Open-addressing hash table of fixed-width session records in a memory-mapped file,
+ * so it lives outside the Java heap and survives a restart.
+ *
+ * The file is a 64-byte header followed by {@code capacity} 32-byte slots:
+ * key high (8), key low (8), userId (8), expiry in epoch seconds (4, unsigned), state (4).
+ * Readers never lock: a writer marks a slot WRITING, fills it in and publishes it by
+ * writing the state last, and a reader re-checks state and key after reading a record.
+ * Writers serialize on the table, and full scans on behalf of a writer run outside
+ * that lock, taking it only for the slots they change. Expired records become DELETED slots that inserts
+ * reuse; when too many pile up the table is rehashed into a fresh file.
+ */
+final class MappedSessionTable implements Closeable {
+    static final int EMPTY = 0;
+    static final int ACTIVE = 1;
+    static final int INACTIVE = 2;
+    static final int DELETED = 3;
+    static final int WRITING = 4;
+    // Returned by read() for keys not in the table
+    static final long MISSING = -1;
+
+    private static final long MAGIC = 0x43524D5345535331L; // "CRMSESS1"
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 32;
+    private static final int H_MAGIC = 0;
+    private static final int H_CAPACITY = 8;
+    private static final int H_WATERMARK = 16;
+    private static final int H_CLEAN = 24;
+    private static final int KEY_HIGH = 0;
+    private static final int KEY_LOW = 8;
+    private static final int USER_ID = 16;
+    private static final int EXPIRY = 24;
+    private static final int STATE = 28;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+    private final Path path;
+    private final int capacity;
+    private final int mask;
+    private final boolean reopened;
+    private final boolean previousShutdownClean;
+    private FileChannel channel;
+    private FileLock lock;
+    private volatile MappedByteBuffer buffer;
+    // Slots holding ACTIVE/INACTIVE records, and those plus DELETED ones; guarded by this
+    private int live;
+    private int used;
+
+    private MappedSessionTable(Path path, int capacity) throws IOException {
+        this.path = path;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            this.lock = null;
+        }
+        if (lock == null) {
+            channel.close();
+            throw new IOException("Session table " + path + " is in use by another process");
+        }
+
+        long size = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+        boolean reusable = channel.size() == size;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        reusable = reusable
+                && (long) LONGS.get(buffer, H_MAGIC) == MAGIC
+                && (long) LONGS.get(buffer, H_CAPACITY) == capacity;
+        this.reopened = reusable;
+        this.previousShutdownClean = reusable && (long) LONGS.get(buffer, H_CLEAN) == 1;
+        if (reusable) {
+            recount();
+        } else {
+            initialize(buffer, capacity);
+        }
+        LONGS.setVolatile(buffer, H_CLEAN, 0L);
+    }
+
+    /**
+     * Map {@code path}, reusing its records if it holds a table of the same capacity.
+     * Fails if another process (or another table in this one) has it open.
+     */
+    static MappedSessionTable open(Path path, int capacity) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        // Power of two for masking, and small enough for int offsets into the mapping
+        int size = Integer.highestOneBit(Math.min(Math.max(2, capacity), 1 << 25) - 1) << 1;
+        return new MappedSessionTable(path, size);
+    }
+
+    boolean isReopened() {
+        return reopened;
+    }
+
+    boolean wasShutdownClean() {
+        return previousShutdownClean;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    synchronized int size() {
+        return live;
+    }
+
+    /**
+     * Highest user_sessions.id copied into the table so far.
+     */
+    long watermark() {
+        return (long) LONGS.getVolatile(buffer, H_WATERMARK);
+    }
+
+    synchronized void watermark(long id) {
+        LONGS.setVolatile(buffer, H_WATERMARK, id);
+    }
+
+    /**
+     * The state and expiry of a record packed into one long (see {@link #stateOf} and
+     * {@link #expiresAtMillisOf}), or {@link #MISSING}.
+     */
+    long read(long keyHigh, long keyLow) {
+        MappedByteBuffer b = buffer;
+        int slot = (int) (mix(keyHigh, keyLow) & mask);
+        for (int probe = 0; probe < capacity; probe++, slot = (slot + 1) & mask) {
+            long base = offset(slot);
+            int state = (int) INTS.getAcquire(b, (int) (base + STATE));
+            if (state == EMPTY) {
+                return MISSING;
+            }
+            if ((state == ACTIVE || state == INACTIVE)
+                    && (long) LONGS.get(b, (int) (base + KEY_HIGH)) == keyHigh
+                    && (long) LONGS.get(b, (int) (base + KEY_LOW)) == keyLow) {
+                int expiry = (int) INTS.getAcquire(b, (int) (base + EXPIRY));
+                // The slot may have been rewritten while it was read; only trust an unchanged one
+                if ((int) INTS.getAcquire(b, (int) (base + STATE)) == state
+                        && (long) LONGS.get(b, (int) (base + KEY_HIGH)) == keyHigh
+                        && (long) LONGS.get(b, (int) (base + KEY_LOW)) == keyLow) {
+                    return (Integer.toUnsignedLong(expiry) << 8) | state;
+                }
+                return MISSING;
+            }
+        }
+        return MISSING;
+    }
+
+    static int stateOf(long record) {
+        return (int) (record & 0xFF);
+    }
+
+    static long expiresAtMillisOf(long record) {
+        return (record >>> 8) * 1000;
+    }
+
+    /**
+     * Insert or overwrite a record. False if the table is full.
+     */
+    synchronized boolean put(long keyHigh, long keyLow, long userId, int state, long expiresAtMillis) {
+        int slot = findSlot(keyHigh, keyLow);
+        if (slot < 0) {
+            if (used - live > capacity / 4 && !tryRehash()) {
+                return false;
+            }
+            slot = claimSlot(keyHigh, keyLow);
+            if (slot < 0) {
+                return false;
+            }
+        }
+        write(buffer, slot, keyHigh, keyLow, userId, state, expiresAtMillis);
+        return true;
+    }
+
+    /**
+     * Insert a record unless the key is present. Returns the record now in the table
+     * (packed as by {@link #read}), or {@link #MISSING} if the table is full.
+     */
+    synchronized long putIfAbsent(long keyHigh, long keyLow, long userId, int state, long expiresAtMillis) {
+        long existing = read(keyHigh, keyLow);
+        if (existing != MISSING) {
+            return existing;
+        }
+        if (!put(keyHigh, keyLow, userId, state, expiresAtMillis)) {
+            return MISSING;
+        }
+        return (toSeconds(expiresAtMillis) << 8) | state;
+    }
+
+    /**
+     * Overwrite a record, but only if it is still {@code expected} (as returned by
+     * {@link #read}); a deactivation or extension in between wins. Returns the record
+     * now in the table.
+     */
+    synchronized long replace(long keyHigh, long keyLow, long expected, long userId, int state, long expiresAtMillis) {
+        long current = read(keyHigh, keyLow);
+        if (current != expected) {
+            return current;
+        }
+        put(keyHigh, keyLow, userId, state, expiresAtMillis);
+        return (toSeconds(expiresAtMillis) << 8) | state;
+    }
+
+    /**
+     * Push an active record's expiry forward. Lock-free when it would not move, which
+     * at one-second resolution is nearly always.
+     */
+    void extendExpiry(long keyHigh, long keyLow, long expiresAtMillis) {
+        long current = read(keyHigh, keyLow);
+        if (current == MISSING || stateOf(current) != ACTIVE || (current >>> 8) >= toSeconds(expiresAtMillis)) {
+            return;
+        }
+        synchronized (this) {
+            int slot = findSlot(keyHigh, keyLow);
+            if (slot >= 0 && state(buffer, slot) == ACTIVE) {
+                long base = offset(slot);
+                int stored = (int) INTS.getAcquire(buffer, (int) (base + EXPIRY));
+                if (Integer.toUnsignedLong(stored) < toSeconds(expiresAtMillis)) {
+                    INTS.setRelease(buffer, (int) (base + EXPIRY), (int) toSeconds(expiresAtMillis));
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark a present record inactive. False if the key is not in the table.
+     */
+    synchronized boolean deactivate(long keyHigh, long keyLow) {
+        int slot = findSlot(keyHigh, keyLow);
+        if (slot < 0) {
+            return false;
+        }
+        INTS.setRelease(buffer, (int) (offset(slot) + STATE), INACTIVE);
+        return true;
+    }
+
+    /**
+     * Mark every active record of a user inactive. The scan reads without the lock, so
+     * inserts and extensions carry on meanwhile; the lock is only taken to flip a match.
+     * A rehash during the scan swaps the mapping, and the scan then goes over the new one.
+     */
+    int deactivateUser(long userId) {
+        int deactivated = 0;
+        MappedByteBuffer b;
+        do {
+            b = buffer;
+            for (int slot = 0; slot < capacity; slot++) {
+                if (state(b, slot) == ACTIVE && userIdOf(b, slot) == userId) {
+                    synchronized (this) {
+                        if (buffer == b && state(b, slot) == ACTIVE && userIdOf(b, slot) == userId) {
+                            INTS.setRelease(b, (int) (offset(slot) + STATE), INACTIVE);
+                            deactivated++;
+                        }
+                    }
+                }
+            }
+        } while (b != buffer);
+        return deactivated;
+    }
+
+    /**
+     * Free the slots of records expired at {@code nowMillis}, rehashing into a fresh file
+     * once freed slots make up a quarter of the table. Returns the number freed.
+     */
+    synchronized int sweep(long nowMillis) throws IOException {
+        long nowSeconds = nowMillis / 1000;
+        int freed = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int state = state(buffer, slot);
+            if ((state == ACTIVE || state == INACTIVE)
+                    && Integer.toUnsignedLong((int) INTS.get(buffer, (int) (offset(slot) + EXPIRY))) <= nowSeconds) {
+                INTS.setRelease(buffer, (int) (offset(slot) + STATE), DELETED);
+                freed++;
+            }
+        }
+        live -= freed;
+        if (used - live > capacity / 4) {
+            rehash();
+        }
+        return freed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        LONGS.setVolatile(buffer, H_CLEAN, 1L);
+        buffer.force();
+        lock.release();
+        channel.close();
+    }
+
+    // Slot holding the key, or -1
+    private int findSlot(long keyHigh, long keyLow) {
+        int slot = (int) (mix(keyHigh, keyLow) & mask);
+        for (int probe = 0; probe < capacity; probe++, slot = (slot + 1) & mask) {
+            int state = state(buffer, slot);
+            if (state == EMPTY) {
+                return -1;
+            }
+            if ((state == ACTIVE || state == INACTIVE) && matches(buffer, slot, keyHigh, keyLow)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    // First reusable slot on the key's probe path, or -1 once the table is three quarters live
+    private int claimSlot(long keyHigh, long keyLow) {
+        if (live >= capacity - capacity / 4) {
+            return -1;
+        }
+        int slot = (int) (mix(keyHigh, keyLow) & mask);
+        for (int probe = 0; probe < capacity; probe++, slot = (slot + 1) & mask) {
+            int state = state(buffer, slot);
+            if (state == EMPTY || state == DELETED) {
+                live++;
+                if (state == EMPTY) {
+                    used++;
+                }
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean tryRehash() {
+        try {
+            rehash();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void rehash() throws IOException {
+        Path next = path.resolveSibling(path.getFileName() + ".rehash");
+        long size = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+        FileChannel nextChannel = FileChannel.open(next, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        MappedByteBuffer nextBuffer = nextChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        initialize(nextBuffer, capacity);
+        LONGS.set(nextBuffer, H_WATERMARK, (long) LONGS.get(buffer, H_WATERMARK));
+        int copied = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int state = state(buffer, slot);
+            if (state != ACTIVE && state != INACTIVE) {
+                continue;
+            }
+            long base = offset(slot);
+            long keyHigh = (long) LONGS.get(buffer, (int) (base + KEY_HIGH));
+            long keyLow = (long) LONGS.get(buffer, (int) (base + KEY_LOW));
+            int target = (int) (mix(keyHigh, keyLow) & mask);
+            while (state(nextBuffer, target) != EMPTY) {
+                target = (target + 1) & mask;
+            }
+            write(nextBuffer, target, keyHigh, keyLow, (long) LONGS.get(buffer, (int) (base + USER_ID)), state,
+                    Integer.toUnsignedLong((int) INTS.get(buffer, (int) (base + EXPIRY))) * 1000);
+            copied++;
+        }
+        nextBuffer.force();
+
+        // Readers still holding the old mapping keep seeing a complete (if aging) table
+        FileLock nextLock = nextChannel.lock();
+        Files.move(next, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lock.release();
+        channel.close();
+        channel = nextChannel;
+        lock = nextLock;
+        buffer = nextBuffer;
+        LONGS.setVolatile(buffer, H_CLEAN, 0L);
+        live = copied;
+        used = copied;
+    }
+
+    private void recount() {
+        live = 0;
+        used = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int state = state(buffer, slot);
+            if (state == WRITING) {
+                // Torn by a crash mid-write
+                INTS.set(buffer, (int) (offset(slot) + STATE), DELETED);
+                state = DELETED;
+            }
+            if (state != EMPTY) {
+                used++;
+            }
+            if (state == ACTIVE || state == INACTIVE) {
+                live++;
+            }
+        }
+    }
+
+    private static void initialize(MappedByteBuffer buffer, int capacity) {
+        for (int slot = 0; slot < capacity; slot++) {
+            INTS.set(buffer, (int) (offset(slot) + STATE), EMPTY);
+        }
+        LONGS.set(buffer, H_CAPACITY, (long) capacity);
+        LONGS.set(buffer, H_WATERMARK, 0L);
+        LONGS.setVolatile(buffer, H_MAGIC, MAGIC);
+    }
+
+    private static void write(MappedByteBuffer buffer, int slot, long keyHigh, long keyLow, long userId,
+                              int state, long expiresAtMillis) {
+        long base = offset(slot);
+        INTS.setVolatile(buffer, (int) (base + STATE), WRITING);
+        LONGS.set(buffer, (int) (base + KEY_HIGH), keyHigh);
+        LONGS.set(buffer, (int) (base + KEY_LOW), keyLow);
+        LONGS.set(buffer, (int) (base + USER_ID), userId);
+        INTS.set(buffer, (int) (base + EXPIRY), (int) toSeconds(expiresAtMillis));
+        INTS.setRelease(buffer, (int) (base + STATE), state);
+    }
+
+    private static int state(MappedByteBuffer buffer, int slot) {
+        return (int) INTS.getAcquire(buffer, (int) (offset(slot) + STATE));
+    }
+
+    private static long userIdOf(MappedByteBuffer buffer, int slot) {
+        return (long) LONGS.get(buffer, (int) (offset(slot) + USER_ID));
+    }
+
+    private static boolean matches(MappedByteBuffer buffer, int slot, long keyHigh, long keyLow) {
+        long base = offset(slot);
+        return (long) LONGS.get(buffer, (int) (base + KEY_HIGH)) == keyHigh
+                && (long) LONGS.get(buffer, (int) (base + KEY_LOW)) == keyLow;
+    }
+
+    private static long offset(int slot) {
+        return HEADER_BYTES + (long) slot * SLOT_BYTES;
+    }
+
+    // Floor to whole seconds, clamped to the unsigned 32-bit range the record holds
+    private static long toSeconds(long millis) {
+        return Math.max(0, Math.min(millis / 1000, 0xFFFFFFFFL));
+    }
+
+    // MurmurHash3 fmix64 of both halves, so non-random keys spread as well as UUIDs
+    private static long mix(long high, long low) {
+        long h = high ^ Long.rotateLeft(low, 31);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -1,51 +1,81 @@
 package com.example.crm.service;
 
+import com.example.crm.dto.CursorPage;
+import com.example.crm.dto.ExpandedOpportunityDto;
 import com.example.crm.dto.OpportunityDto;
 import com.example.crm.model.Contact;
 import com.example.crm.model.Opportunity;
+import com.example.crm.model.enums.Expansion;
 import com.example.crm.model.enums.OpportunityStage;
 import com.example.crm.repository.ContactRepository;
 import com.example.crm.repository.OpportunityRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import jakarta.transaction.Transactional;
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class OpportunityService {
     private final OpportunityRepository oppRepo;
     private final ContactRepository contactRepo;
+    private final CursorPaging paging;
+    private final JsonArrayStreamer streamer;
+    private final RelationExpander expander;
 
-    public OpportunityService(OpportunityRepository oppRepo, ContactRepository contactRepo) {
+    public OpportunityService(OpportunityRepository oppRepo, ContactRepository contactRepo,
+                              CursorPaging paging, JsonArrayStreamer streamer, RelationExpander expander) {
         this.oppRepo = oppRepo;
         this.contactRepo = contactRepo;
+        this.paging = paging;
+        this.streamer = streamer;
+        this.expander = expander;
     }
 
-    public List<OpportunityDto> getAll() {
-        return oppRepo.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    public StreamingResponseBody streamAll(Set<Expansion> expand) {
+        return stream(() -> oppRepo.streamAll(), expand);
     }
 
-    public List<OpportunityDto> getByContact(Long contactId) {
-        return oppRepo.findByContactId(contactId).stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    public StreamingResponseBody streamByContact(Long contactId, Set<Expansion> expand) {
+        return stream(() -> oppRepo.streamByContactId(contactId), expand);
     }
 
-    public List<OpportunityDto> getByStage(OpportunityStage stage) {
-        return oppRepo.findByStage(stage).stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+    public StreamingResponseBody streamByStage(OpportunityStage stage, Set<Expansion> expand) {
+        return stream(() -> oppRepo.streamByStage(stage), expand);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<ExpandedOpportunityDto> getPage(String cursor, Integer limit, Set<Expansion> expand) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return expand(paging.page(oppRepo.findPage(after.sortKey(), after.id(), size + 1),
+                size, OpportunityService::cursorOf), expand);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ExpandedOpportunityDto> getPageByContact(Long contactId, String cursor, Integer limit, Set<Expansion> expand) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return expand(paging.page(oppRepo.findPageByContactId(contactId, after.sortKey(), after.id(), size + 1),
+                size, OpportunityService::cursorOf), expand);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<ExpandedOpportunityDto> getPageByStage(OpportunityStage stage, String cursor, Integer limit, Set<Expansion> expand) {
+        int size = paging.limit(limit);
+        PageCursor after = paging.cursor(cursor, true);
+        return expand(paging.page(oppRepo.findPageByStage(stage, after.sortKey(), after.id(), size + 1),
+                size, OpportunityService::cursorOf), expand);
+    }
+
+    @Transactional(readOnly = true)
     public OpportunityDto getById(Long id) {
-        Opportunity o = oppRepo.findById(id)
+        return oppRepo.findDtoById(id)
                 .orElseThrow(() -> new RuntimeException("Opportunity not found"));
-        return toDto(o);
     }
 
     public OpportunityDto create(OpportunityDto dto) {
@@ -72,6 +102,21 @@ public class OpportunityService {
         oppRepo.deleteById(id);
     }
 
+    private StreamingResponseBody stream(Supplier<Stream<OpportunityDto>> query, Set<Expansion> expand) {
+        return expand.isEmpty()
+                ? streamer.stream(query)
+                : streamer.stream(query, rows -> expander.opportunities(rows, expand));
+    }
+
+    // Wrapped even when nothing is expanded: the relation fields are then left out of the JSON
+    private CursorPage<ExpandedOpportunityDto> expand(CursorPage<OpportunityDto> page, Set<Expansion> expand) {
+        return page.withItems(expander.opportunities(page.getItems(), expand));
+    }
+
+    private static PageCursor cursorOf(OpportunityDto e) {
+        return new PageCursor(e.getCreatedAt(), e.getId());
+    }
+
     // --- Manual Mapping ---
     private OpportunityDto toDto(Opportunity o) {
         OpportunityDto dto = new OpportunityDto();
@@ -0,0 +1,140 @@
+package com.example.crm.service;
+
+import com.example.crm.dto.ActivityDto;
+import com.example.crm.dto.CompanyDto;
+import com.example.crm.dto.CompanyOverviewDto;
+import com.example.crm.dto.ContactDto;
+import com.example.crm.dto.ContactOverviewDto;
+import com.example.crm.dto.OpportunityDto;
+import com.example.crm.dto.OpportunityOverviewDto;
+import com.example.crm.repository.ActivityRepository;
+import com.example.crm.repository.CompanyRepository;
+import com.example.crm.repository.ContactRepository;
+import com.example.crm.repository.OpportunityRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Detail views of one company, contact or opportunity together with the related rows
+ * the page shows, so the browser no longer downloads whole tables to filter them.
+ *
+ * Every related list is an indexed query scoped to the one account (by contact_id, or
+ * by company_id through the contacts), and the independent queries of a view run at
+ * the same time, each in its own read-only transaction on a small dedicated pool. The
+ * pool size also caps the connections overviews hold at once. Queries beyond that wait
+ * in a bounded queue ({@code overview.queue-capacity}); only once the queue is full too
+ * does the request thread run the query itself, rather than queueing without bound.
+ */
+@Service
+public class OverviewService {
+    private final CompanyRepository companyRepo;
+    private final ContactRepository contactRepo;
+    private final OpportunityRepository oppRepo;
+    private final ActivityRepository activityRepo;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ThreadPoolExecutor executor;
+
+    public OverviewService(
+            CompanyRepository companyRepo,
+            ContactRepository contactRepo,
+            OpportunityRepository oppRepo,
+            ActivityRepository activityRepo,
+            PlatformTransactionManager transactionManager,
+            @Value("${overview.threads:4}") int threads,
+            @Value("${overview.queue-capacity:64}") int queueCapacity
+    ) {
+        this.companyRepo = companyRepo;
+        this.contactRepo = contactRepo;
+        this.oppRepo = oppRepo;
+        this.activityRepo = activityRepo;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "overview-query-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    public CompanyOverviewDto getCompanyOverview(Long companyId) {
+        CompletableFuture<CompanyDto> company = query(() -> companyRepo.findDtoById(companyId)
+                .orElseThrow(() -> notFound("Company")));
+        CompletableFuture<List<ContactDto>> contacts = query(() -> contactRepo.findDtosByCompanyId(companyId));
+        CompletableFuture<List<OpportunityDto>> opportunities = query(() -> oppRepo.findDtosByCompanyId(companyId));
+        CompletableFuture<List<ActivityDto>> activities = query(() -> activityRepo.findDtosByCompanyId(companyId));
+        return new CompanyOverviewDto(join(company), join(contacts), join(opportunities), join(activities));
+    }
+
+    public ContactOverviewDto getContactOverview(Long contactId) {
+        CompletableFuture<ContactDto> contact = query(() -> contactRepo.findDtoById(contactId)
+                .orElseThrow(() -> notFound("Contact")));
+        CompletableFuture<List<OpportunityDto>> opportunities = query(() -> oppRepo.findDtosByContactId(contactId));
+        CompletableFuture<List<ActivityDto>> activities = query(() -> activityRepo.findDtosByContactId(contactId));
+        CompletableFuture<CompanyDto> company = contact.thenCompose(c -> companyOf(c.getCompanyId()));
+        return new ContactOverviewDto(join(contact), join(company), join(opportunities), join(activities));
+    }
+
+    public OpportunityOverviewDto getOpportunityOverview(Long opportunityId) {
+        // Everything else hangs off its contact, so this one comes first
+        OpportunityDto opportunity = readOnlyTransaction.execute(status -> oppRepo.findDtoById(opportunityId)
+                .orElseThrow(() -> notFound("Opportunity")));
+        Long contactId = opportunity.getContactId();
+        CompletableFuture<ContactDto> contact = query(() -> contactRepo.findDtoById(contactId)
+                .orElseThrow(() -> notFound("Contact")));
+        CompletableFuture<List<ActivityDto>> activities = query(() -> activityRepo.findDtosByContactId(contactId));
+        CompletableFuture<CompanyDto> company = contact.thenCompose(c -> companyOf(c.getCompanyId()));
+        return new OpportunityOverviewDto(opportunity, join(contact), join(company), join(activities));
+    }
+
+    private CompletableFuture<CompanyDto> companyOf(Long companyId) {
+        if (companyId == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return query(() -> companyRepo.findDtoById(companyId).orElse(null));
+    }
+
+    private <T> CompletableFuture<T> query(Supplier<T> query) {
+        return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), executor);
+    }
+
+    // Rethrow what the query threw, so it maps to a response like any service exception
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static ResponseStatusException notFound(String entity) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, entity + " not found");
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.crm.service;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Position in a list ordered by (sort key, id): the sort key and id of the last row
+ * returned. Travels as an opaque base64url token of the key in epoch microseconds
+ * (the database's precision) and the id.
+ */
+public record PageCursor(OffsetDateTime sortKey, long id) {
+    // Sort keys before/after every real row, so the first page needs no separate query
+    private static final OffsetDateTime LOWEST = OffsetDateTime.of(1, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime HIGHEST = OffsetDateTime.of(9999, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    /**
+     * Position before the first row of a list sorted in the given direction.
+     */
+    public static PageCursor start(boolean descending) {
+        return descending ? new PageCursor(HIGHEST, Long.MAX_VALUE) : new PageCursor(LOWEST, 0);
+    }
+
+    /**
+     * @throws InvalidCursorException if the token is not one {@link #encode()} produced
+     */
+    public static PageCursor decode(String token) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Base64.getUrlDecoder().decode(token));
+            long micros = buffer.getLong();
+            long id = buffer.getLong();
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("trailing bytes");
+            }
+            Instant instant = Instant.EPOCH.plus(micros, ChronoUnit.MICROS);
+            return new PageCursor(instant.atOffset(ZoneOffset.UTC), id);
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, sortKey.toInstant());
+        ByteBuffer buffer = ByteBuffer.allocate(16).putLong(micros).putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+}
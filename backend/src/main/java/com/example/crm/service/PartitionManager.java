@@ -0,0 +1,81 @@
+package com.example.crm.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+/**
+ * Maintains the daily partitions of user_sessions and refresh_tokens, keyed by the
+ * day each row was created (set up by db/schema-extensions.sql).
+ *
+ * Partitions are created a configurable number of days ahead and dropped as a
+ * whole once every row in them has expired, so expiry cleanup is a handful of
+ * DDL statements instead of a large DELETE. Rows revoked before they expire are
+ * deleted by {@link BatchPurger}.
+ */
+@Component
+@Slf4j
+public class PartitionManager {
+    public static final String USER_SESSIONS = "user_sessions";
+    public static final String REFRESH_TOKENS = "refresh_tokens";
+
+    private static final String ENSURE_SQL = """
+            SELECT count(*) FILTER (WHERE crm_ensure_daily_partition(?, d::date))
+            FROM generate_series(?::date, ?::date, interval '1 day') AS d
+            """;
+    private static final String DROP_SQL = "SELECT crm_drop_expired_partitions(?, ?, ?)";
+    private static final Map<String, String> EXPIRY_COLUMNS = Map.of(
+            USER_SESSIONS, "expired_at",
+            REFRESH_TOKENS, "expiry_date");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int aheadDays;
+    private final int retentionDays;
+
+    public PartitionManager(
+            JdbcTemplate jdbcTemplate,
+            @Value("${partition.ahead-days:3}") int aheadDays,
+            @Value("${partition.retention-days:1}") int retentionDays
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.aheadDays = aheadDays;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Make sure partitions exist from yesterday up to {@code aheadDays} ahead.
+     * Returns the number of partitions created.
+     */
+    public int ensurePartitions(String table) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Integer created = jdbcTemplate.queryForObject(ENSURE_SQL, Integer.class,
+                table, Date.valueOf(today.minusDays(1)), Date.valueOf(today.plusDays(aheadDays)));
+        if (created != null && created > 0) {
+            log.info("Created {} partitions of {}", created, table);
+        }
+        return created != null ? created : 0;
+    }
+
+    /**
+     * Drop the partitions of past days whose rows have all been expired for at least
+     * {@code retentionDays}. Returns the number of partitions dropped.
+     */
+    public int dropExpiredPartitions(String table) {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        Integer dropped = jdbcTemplate.queryForObject(DROP_SQL, Integer.class,
+                table, EXPIRY_COLUMNS.get(table), Timestamp.from(cutoff));
+        if (dropped != null && dropped > 0) {
+            log.info("Dropped {} expired partitions of {}", dropped, table);
+        }
+        return dropped != null ? dropped : 0;
+    }
+}
@@ -4,15 +4,14 @@ import com.example.crm.config.JwtTokenProvider;
 import com.example.crm.model.RefreshToken;
 import com.example.crm.model.User;
 import com.example.crm.repository.RefreshTokenRepository;
+import com.example.crm.repository.UserRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.security.SecureRandom;
 import java.time.OffsetDateTime;
-import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,22 +20,29 @@ import java.util.Optional;
 @Slf4j
 public class RefreshTokenService {
     private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
+    private final PartitionManager partitionManager;
+    private final BatchPurger batchPurger;
     private final int maxActiveTokensPerUser;
-    private final SecureRandom secureRandom;
 
     public RefreshTokenService(
             RefreshTokenRepository refreshTokenRepository,
+            UserRepository userRepository,
             JwtTokenProvider jwtTokenProvider,
+            PartitionManager partitionManager,
+            BatchPurger batchPurger,
             @Value("${jwt.max-active-refresh-tokens-per-user:5}") int maxActiveTokensPerUser
     ) {
         this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.partitionManager = partitionManager;
+        this.batchPurger = batchPurger;
         this.maxActiveTokensPerUser = maxActiveTokensPerUser;
-        this.secureRandom = new SecureRandom();
     }
 
-    public RefreshToken createRefreshToken(User user, HttpServletRequest request) {
+    public RefreshToken createRefreshToken(User user, String sessionId, HttpServletRequest request) {
         // Clean up old tokens if user has too many
         cleanupExcessiveTokens(user);
 
@@ -50,7 +56,9 @@ public class RefreshTokenService {
         OffsetDateTime now = OffsetDateTime.now();
         RefreshToken refreshToken = RefreshToken.builder()
                 .token(tokenValue)
+                .tokenHash(SecureTokens.sha256(tokenValue))
                 .user(user)
+                .sessionId(sessionId)
                 .createdAt(now)
                 .expiryDate(now.plusDays(jwtTokenProvider.getRefreshTokenValidityInDays()))
                 .deviceInfo(deviceInfo)
@@ -65,7 +73,7 @@ public class RefreshTokenService {
     }
 
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByTokenAndIsRevokedFalse(token);
+        return refreshTokenRepository.findByTokenHashAndIsRevokedFalse(SecureTokens.sha256(token));
     }
 
     public RefreshToken verifyExpiration(RefreshToken token) {
@@ -76,9 +84,19 @@ public class RefreshTokenService {
         return token;
     }
 
+    /**
+     * Bind the token to the session a refresh kept alive or started in its place.
+     */
+    public void bindToSession(RefreshToken token, String sessionId) {
+        if (!sessionId.equals(token.getSessionId())) {
+            token.setSessionId(sessionId);
+            refreshTokenRepository.save(token);
+        }
+    }
+
     public void revokeToken(String token) {
-        refreshTokenRepository.revokeByToken(token, OffsetDateTime.now());
-        log.info("Revoked refresh token: {}", token.substring(0, 10) + "...");
+        refreshTokenRepository.revokeByTokenHash(SecureTokens.sha256(token), OffsetDateTime.now());
+        log.info("Revoked refresh token");
     }
 
     public void revokeAllUserTokens(User user) {
@@ -90,36 +108,29 @@ public class RefreshTokenService {
         return refreshTokenRepository.findByUserAndIsRevokedFalse(user);
     }
 
+    // Runs outside a transaction: every partition operation and purge batch commits on its own
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void cleanupExpiredTokens() {
-        refreshTokenRepository.deleteExpiredAndRevokedTokens(OffsetDateTime.now());
-        log.debug("Cleaned up expired and revoked refresh tokens");
+        partitionManager.ensurePartitions(PartitionManager.REFRESH_TOKENS);
+        int dropped = partitionManager.dropExpiredPartitions(PartitionManager.REFRESH_TOKENS);
+        long purged = batchPurger.purge(refreshTokenRepository::deleteRevokedBatch);
+        log.debug("Cleaned up expired and revoked refresh tokens ({} partitions dropped, {} rows purged)", dropped, purged);
     }
 
     private void cleanupExcessiveTokens(User user) {
-        long activeTokenCount = refreshTokenRepository.countActiveTokensByUser(user, OffsetDateTime.now());
-        
-        if (activeTokenCount >= maxActiveTokensPerUser) {
-            List<RefreshToken> activeTokens = refreshTokenRepository.findByUserAndIsRevokedFalse(user);
-            
-            // Sort by creation date and revoke oldest tokens
-            activeTokens.stream()
-                    .sorted((t1, t2) -> t1.getCreatedAt().compareTo(t2.getCreatedAt()))
-                    .limit(activeTokenCount - maxActiveTokensPerUser + 1)
-                    .forEach(token -> {
-                        token.setIsRevoked(true);
-                        token.setRevokedAt(OffsetDateTime.now());
-                        refreshTokenRepository.save(token);
-                    });
-            
-            log.info("Cleaned up {} excessive refresh tokens for user: {}", 
-                    activeTokenCount - maxActiveTokensPerUser + 1, user.getUsername());
+        // Serialize with other token issues for this user; a no-op re-lock when login already holds it
+        userRepository.lockById(user.getId());
+        // Keep room for the token about to be created
+        int revoked = refreshTokenRepository.revokeAllButNewest(
+                user.getId(), Math.max(0, maxActiveTokensPerUser - 1), OffsetDateTime.now());
+
+        if (revoked > 0) {
+            log.info("Cleaned up {} excessive refresh tokens for user: {}", revoked, user.getUsername());
         }
     }
 
     private String generateSecureToken() {
-        byte[] randomBytes = new byte[64];
-        secureRandom.nextBytes(randomBytes);
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        return SecureTokens.random(64);
     }
 
     private String extractDeviceInfo(HttpServletRequest request) {
@@ -0,0 +1,104 @@
+package com.example.crm.service;
+
+import com.example.crm.dto.ActivityDto;
+import com.example.crm.dto.CompanyDto;
+import com.example.crm.dto.ContactDto;
+import com.example.crm.dto.ExpandedActivityDto;
+import com.example.crm.dto.ExpandedContactDto;
+import com.example.crm.dto.ExpandedOpportunityDto;
+import com.example.crm.dto.OpportunityDto;
+import com.example.crm.model.enums.Expansion;
+import com.example.crm.repository.CompanyRepository;
+import com.example.crm.repository.ContactRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Embeds related records in a batch of list rows: the distinct foreign keys of the
+ * batch are resolved with one {@code WHERE id IN (...)} query per level (contacts,
+ * then their companies), whatever the number of rows. Runs inside the caller's
+ * transaction.
+ */
+@Component
+public class RelationExpander {
+    private final CompanyRepository companyRepo;
+    private final ContactRepository contactRepo;
+
+    public RelationExpander(CompanyRepository companyRepo, ContactRepository contactRepo) {
+        this.companyRepo = companyRepo;
+        this.contactRepo = contactRepo;
+    }
+
+    public List<ExpandedContactDto> contacts(List<ContactDto> rows, Set<Expansion> expand) {
+        Map<Long, CompanyDto> companies = expand.contains(Expansion.COMPANY)
+                ? companiesById(ids(rows, ContactDto::getCompanyId))
+                : Map.of();
+        return rows.stream()
+                .map(c -> new ExpandedContactDto(c, lookup(companies, c.getCompanyId())))
+                .toList();
+    }
+
+    public List<ExpandedOpportunityDto> opportunities(List<OpportunityDto> rows, Set<Expansion> expand) {
+        Map<Long, ExpandedContactDto> contacts = expand.contains(Expansion.CONTACT)
+                ? contactsById(ids(rows, OpportunityDto::getContactId), expand.contains(Expansion.CONTACT_COMPANY))
+                : Map.of();
+        return rows.stream()
+                .map(o -> new ExpandedOpportunityDto(o, lookup(contacts, o.getContactId())))
+                .toList();
+    }
+
+    public List<ExpandedActivityDto> activities(List<ActivityDto> rows, Set<Expansion> expand) {
+        Map<Long, ExpandedContactDto> contacts = expand.contains(Expansion.CONTACT)
+                ? contactsById(ids(rows, ActivityDto::getContactId), expand.contains(Expansion.CONTACT_COMPANY))
+                : Map.of();
+        return rows.stream()
+                .map(a -> new ExpandedActivityDto(a, lookup(contacts, a.getContactId())))
+                .toList();
+    }
+
+    private Map<Long, ExpandedContactDto> contactsById(Set<Long> ids, boolean withCompany) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        List<ContactDto> contacts = contactRepo.findDtosByIdIn(ids);
+        Set<Expansion> nested = withCompany ? Set.of(Expansion.COMPANY) : Set.of();
+        Map<Long, ExpandedContactDto> byId = new HashMap<>();
+        for (ExpandedContactDto contact : contacts(contacts, nested)) {
+            byId.put(contact.getContact().getId(), contact);
+        }
+        return byId;
+    }
+
+    private Map<Long, CompanyDto> companiesById(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, CompanyDto> byId = new HashMap<>();
+        for (CompanyDto company : companyRepo.findDtosByIdIn(ids)) {
+            byId.put(company.getId(), company);
+        }
+        return byId;
+    }
+
+    private static <T> Set<Long> ids(Collection<T> rows, Function<T, Long> foreignKey) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (T row : rows) {
+            Long id = foreignKey.apply(row);
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static <T> T lookup(Map<Long, T> byId, Long id) {
+        return id == null ? null : byId.get(id);
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.crm.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cluster-wide registry of revoked sessions and access tokens.
+ *
+ * Each node keeps the revoked sessionIds and token IDs (jti) in an exact map with
+ * their expiry, fronted by a Bloom filter so that the common case - a token that was
+ * never revoked - is answered from memory with a few bit probes. Revocations are
+ * published with pg_notify inside the revoking transaction, so they go out on commit,
+ * and every node applies them from a LISTEN connection; the publishing node also
+ * applies them itself right after the commit, without waiting for the round trip.
+ * After (re)connecting, a node re-reads the revoked, unexpired sessions so nothing
+ * missed while it was disconnected stays valid.
+ *
+ * The LISTEN connection is borrowed from the application's DataSource and kept for
+ * as long as it works, so it takes one connection out of the pool.
+ */
+@Component
+@Slf4j
+public class RevocationRegistry {
+    static final String CHANNEL = "crm_revocations";
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+    private static final long RECONNECT_DELAY_MILLIS = 2000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final SessionIndex sessionIndex;
+    private final UserStatusCache userStatusCache;
+    private final long sessionTimeoutMillis;
+    private final int bloomExpectedInsertions;
+    private final double bloomFalsePositiveRate;
+
+    // Revoked sessionId / jti -> epoch millis after which the entry can be forgotten
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final Object bloomLock = new Object();
+    private volatile BloomFilter bloom;
+    private volatile boolean running;
+    private Thread listener;
+
+    public RevocationRegistry(
+            JdbcTemplate jdbcTemplate,
+            DataSource dataSource,
+            SessionIndex sessionIndex,
+            UserStatusCache userStatusCache,
+            @Value("${session.timeout-minutes:30}") int sessionTimeoutMinutes,
+            @Value("${revocation.bloom.expected-insertions:100000}") int bloomExpectedInsertions,
+            @Value("${revocation.bloom.false-positive-rate:0.01}") double bloomFalsePositiveRate
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.sessionIndex = sessionIndex;
+        this.userStatusCache = userStatusCache;
+        this.sessionTimeoutMillis = sessionTimeoutMinutes * 60_000L;
+        this.bloomExpectedInsertions = bloomExpectedInsertions;
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+        this.bloom = new BloomFilter(bloomExpectedInsertions, bloomFalsePositiveRate);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "revocation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            try {
+                // The listener polls with a timeout, so it notices within one poll
+                listener.join(POLL_TIMEOUT_MILLIS * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * True if the sessionId or token ID has been revoked on any node.
+     */
+    public boolean isRevoked(String key) {
+        if (key == null || !bloom.mightContain(key)) {
+            return false;
+        }
+        Long until = revoked.get(key);
+        return until != null && until > System.currentTimeMillis();
+    }
+
+    public void revokeSession(String sessionId) {
+        publish("s|" + sessionId + "|" + (System.currentTimeMillis() + sessionTimeoutMillis));
+    }
+
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        if (tokenId != null) {
+            publish("t|" + tokenId + "|" + expiresAt.toEpochMilli());
+        }
+    }
+
+    /**
+     * Revoke every session of a user and drop the user's cached account status everywhere.
+     */
+    public void revokeUser(Long userId) {
+        publish("u|" + userId + "|" + System.currentTimeMillis());
+    }
+
+    /**
+     * Forget expired entries and rebuild the Bloom filter without them, so it doesn't fill up.
+     */
+    @Scheduled(fixedDelayString = "${revocation.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        if (revoked.values().removeIf(until -> until <= now)) {
+            synchronized (bloomLock) {
+                BloomFilter rebuilt = new BloomFilter(bloomExpectedInsertions, bloomFalsePositiveRate);
+                revoked.keySet().forEach(rebuilt::put);
+                bloom = rebuilt;
+            }
+        }
+    }
+
+    private void publish(String payload) {
+        jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) ps -> {
+            ps.setString(1, CHANNEL);
+            ps.setString(2, payload);
+            return ps.execute();
+        });
+        // Like the notification, a revocation that is rolled back must not take effect here
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(payload);
+                }
+            });
+        } else {
+            apply(payload);
+        }
+    }
+
+    void apply(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("Ignoring malformed revocation: {}", payload);
+            return;
+        }
+        switch (parts[0]) {
+            case "s" -> {
+                remember(parts[1], Long.parseLong(parts[2]));
+                sessionIndex.deactivate(parts[1]);
+            }
+            case "t" -> remember(parts[1], Long.parseLong(parts[2]));
+            case "u" -> {
+                Long userId = Long.valueOf(parts[1]);
+                sessionIndex.deactivateUser(userId);
+                userStatusCache.invalidate(userId);
+            }
+            default -> log.warn("Ignoring unknown revocation type: {}", payload);
+        }
+    }
+
+    private void remember(String key, long untilMillis) {
+        if (untilMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        // Map first, then filter, under the lock a rebuild takes, so no entry is lost from the filter
+        synchronized (bloomLock) {
+            revoked.merge(key, untilMillis, Math::max);
+            bloom.put(key);
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                execute(connection, "LISTEN " + CHANNEL);
+                try {
+                    resync();
+                    PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                    log.info("Listening for revocations on channel {}", CHANNEL);
+                    while (running) {
+                        PGNotification[] notifications = pgConnection.getNotifications((int) POLL_TIMEOUT_MILLIS);
+                        if (notifications != null) {
+                            for (PGNotification notification : notifications) {
+                                apply(notification.getParameter());
+                            }
+                        }
+                    }
+                } finally {
+                    // The connection goes back to the pool; it must not keep collecting notifications there
+                    execute(connection, "UNLISTEN *");
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Revocation listener disconnected, retrying in {} ms: {}", RECONNECT_DELAY_MILLIS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    // Catch up on sessions revoked while this node was not listening
+    private void resync() {
+        jdbcTemplate.query(
+                "SELECT session_id, expired_at FROM user_sessions WHERE is_active = false",
+                rs -> {
+                    String sessionId = rs.getString(1);
+                    remember(sessionId, rs.getTimestamp(2).getTime());
+                    sessionIndex.deactivate(sessionId);
+                });
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.crm.service;
+
+import com.example.crm.model.ScheduledJobRun;
+import com.example.crm.model.enums.JobRunStatus;
+import com.example.crm.repository.ScheduledJobRunRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Runs a scheduled job on at most one node of the cluster per tick.
+ *
+ * Two PostgreSQL mechanisms are combined:
+ * <ul>
+ *   <li>a session-level advisory lock, held on a dedicated connection while the job
+ *   runs, so two nodes never execute the same job at once - and released by the
+ *   server the moment a crashed node's connection goes away;</li>
+ *   <li>a row in scheduler_leases, claimed with one conditional upsert, which keeps
+ *   the job claimed for {@code lockAtLeastFor} after it started so the other nodes'
+ *   ticks in the same period are skipped, and expires after {@code lockAtMostFor}
+ *   if the owner dies mid-run so another node takes over.</li>
+ * </ul>
+ * Every executed run is recorded in scheduled_job_runs with its timings.
+ */
+@Component
+@Slf4j
+public class ScheduledJobLock {
+    // First key of the two-int advisory lock space, to stay clear of other advisory lock users
+    private static final int ADVISORY_LOCK_NAMESPACE = 0x4A4F4253;
+
+    private static final String TRY_ADVISORY_LOCK_SQL = "SELECT pg_try_advisory_lock(?, hashtext(?))";
+    private static final String ADVISORY_UNLOCK_SQL = "SELECT pg_advisory_unlock(?, hashtext(?))";
+    private static final String CLAIM_LEASE_SQL = """
+            INSERT INTO scheduler_leases (job_name, owner, locked_at, locked_until)
+            VALUES (?, ?, now(), now() + make_interval(secs => ?))
+            ON CONFLICT (job_name) DO UPDATE
+                SET owner = EXCLUDED.owner, locked_at = EXCLUDED.locked_at, locked_until = EXCLUDED.locked_until
+                WHERE scheduler_leases.locked_until <= now()
+            """;
+    // Once finished, keep the lease until lockAtLeastFor after the start (or release it now)
+    private static final String RELEASE_LEASE_SQL = """
+            UPDATE scheduler_leases
+            SET locked_until = GREATEST(now(), locked_at + make_interval(secs => ?))
+            WHERE job_name = ? AND owner = ?
+            """;
+
+    private final DataSource dataSource;
+    private final ScheduledJobRunRepository jobRunRepository;
+    private final String nodeId;
+
+    public ScheduledJobLock(
+            DataSource dataSource,
+            ScheduledJobRunRepository jobRunRepository,
+            @Value("${scheduler.node-id:}") String nodeId
+    ) {
+        this.dataSource = dataSource;
+        this.jobRunRepository = jobRunRepository;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Run {@code task} if no other node has run or is running {@code jobName} in the
+     * current period. Returns whether the task ran here; exceptions from the task are
+     * recorded and rethrown.
+     */
+    public boolean runExclusively(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            if (!queryBoolean(connection, TRY_ADVISORY_LOCK_SQL, jobName)) {
+                log.debug("Skipping job {}: running on another node", jobName);
+                return false;
+            }
+            try {
+                if (!claimLease(connection, jobName, lockAtMostFor)) {
+                    log.debug("Skipping job {}: already ran in this period", jobName);
+                    return false;
+                }
+                try {
+                    execute(jobName, task);
+                } finally {
+                    releaseLease(connection, jobName, lockAtLeastFor);
+                }
+                return true;
+            } finally {
+                queryBoolean(connection, ADVISORY_UNLOCK_SQL, jobName);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not coordinate scheduled job " + jobName, e);
+        }
+    }
+
+    private void execute(String jobName, Runnable task) {
+        OffsetDateTime startedAt = OffsetDateTime.now();
+        long start = System.nanoTime();
+        JobRunStatus status = JobRunStatus.FAILED;
+        String error = null;
+        try {
+            task.run();
+            status = JobRunStatus.SUCCEEDED;
+        } catch (RuntimeException e) {
+            error = e.toString();
+            throw e;
+        } finally {
+            recordRun(jobName, startedAt, (System.nanoTime() - start) / 1_000_000, status, error);
+        }
+    }
+
+    private void recordRun(String jobName, OffsetDateTime startedAt, long durationMillis,
+                           JobRunStatus status, String error) {
+        try {
+            jobRunRepository.save(ScheduledJobRun.builder()
+                    .jobName(jobName)
+                    .owner(nodeId)
+                    .startedAt(startedAt)
+                    .finishedAt(OffsetDateTime.now())
+                    .durationMillis(durationMillis)
+                    .status(status)
+                    .errorMessage(error != null && error.length() > 1000 ? error.substring(0, 1000) : error)
+                    .build());
+        } catch (RuntimeException e) {
+            // History is best-effort; never fail the job because of it
+            log.warn("Could not record run of job {}", jobName, e);
+        }
+    }
+
+    private boolean claimLease(Connection connection, String jobName, Duration lockAtMostFor) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(CLAIM_LEASE_SQL)) {
+            statement.setString(1, jobName);
+            statement.setString(2, nodeId);
+            statement.setLong(3, lockAtMostFor.toSeconds());
+            return statement.executeUpdate() == 1;
+        }
+    }
+
+    private void releaseLease(Connection connection, String jobName, Duration lockAtLeastFor) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(RELEASE_LEASE_SQL)) {
+            statement.setLong(1, lockAtLeastFor.toSeconds());
+            statement.setString(2, jobName);
+            statement.setString(3, nodeId);
+            statement.executeUpdate();
+        }
+    }
+
+    private static boolean queryBoolean(Connection connection, String sql, String jobName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, ADVISORY_LOCK_NAMESPACE);
+            statement.setString(2, jobName);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        // Host and pid for humans, random suffix so restarts and co-located nodes never share an id
+        return host + "/" + ManagementFactory.getRuntimeMXBean().getPid() + "/" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
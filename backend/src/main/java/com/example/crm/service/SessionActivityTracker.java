@@ -0,0 +1,148 @@
+package com.example.crm.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind recorder for session activity.
+ *
+ * The auth filter calls {@link #recordAccess(String)} on every request; touches are
+ * coalesced per session in lock-striped maps and written to user_sessions by
+ * {@link #flush()} as one multi-row UPDATE per batch. Expiry is only slid forward
+ * once the remaining lifetime has shrunk by the configured threshold, so the write
+ * volume follows the number of active sessions rather than the request rate.
+ */
+@Component
+@Slf4j
+public class SessionActivityTracker {
+    private static final int STRIPE_COUNT = 16;
+    private static final int FLUSH_BATCH_SIZE = 1000;
+
+    private static final String FLUSH_SQL = """
+            UPDATE user_sessions us
+            SET last_accessed_at = GREATEST(us.last_accessed_at, v.accessed_at),
+                expired_at = CASE
+                    WHEN us.expired_at < v.accessed_at + make_interval(secs => ?)
+                        THEN v.accessed_at + make_interval(secs => ?)
+                    ELSE us.expired_at
+                END
+            FROM (
+                SELECT a.session_id, to_timestamp(a.accessed_ms / 1000.0) AS accessed_at
+                FROM unnest(?::varchar[], ?::bigint[]) AS a(session_id, accessed_ms)
+            ) v
+            WHERE us.session_id = v.session_id
+              AND us.is_active = true
+              AND (us.expired_at IS NULL OR us.expired_at > v.accessed_at)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long sessionTimeoutSeconds;
+    private final long extendBelowSeconds;
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+
+    public SessionActivityTracker(
+            JdbcTemplate jdbcTemplate,
+            @Value("${session.timeout-minutes:30}") int sessionTimeoutMinutes,
+            @Value("${session.activity.expiry-extension-threshold-seconds:60}") long extensionThresholdSeconds
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionTimeoutSeconds = sessionTimeoutMinutes * 60L;
+        // Extend only when less than (timeout - threshold) of the session is left
+        this.extendBelowSeconds = Math.max(0, sessionTimeoutSeconds - extensionThresholdSeconds);
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void recordAccess(String sessionId) {
+        recordAccess(sessionId, System.currentTimeMillis());
+    }
+
+    void recordAccess(String sessionId, long accessedAtMillis) {
+        stripes[(sessionId.hashCode() & 0x7fffffff) % STRIPE_COUNT].record(sessionId, accessedAtMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${session.activity.flush-interval-ms:5000}")
+    public void flush() {
+        Map<String, Long> pending = drain();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> sessionIds = new ArrayList<>(pending.keySet());
+        int updated = 0;
+        for (int from = 0; from < sessionIds.size(); from += FLUSH_BATCH_SIZE) {
+            List<String> batch = sessionIds.subList(from, Math.min(from + FLUSH_BATCH_SIZE, sessionIds.size()));
+            try {
+                updated += writeBatch(batch, pending);
+            } catch (Exception e) {
+                log.error("Failed to flush activity for {} sessions, will retry", batch.size(), e);
+                batch.forEach(id -> recordAccess(id, pending.get(id)));
+            }
+        }
+        log.debug("Flushed activity for {} sessions ({} rows updated)", pending.size(), updated);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Swap out every stripe's pending touches.
+     */
+    Map<String, Long> drain() {
+        Map<String, Long> pending = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            pending.putAll(stripe.drain());
+        }
+        return pending;
+    }
+
+    private int writeBatch(List<String> sessionIds, Map<String, Long> pending) {
+        Long[] accessedAt = sessionIds.stream().map(pending::get).toArray(Long[]::new);
+        return jdbcTemplate.update(FLUSH_SQL, ps -> {
+            Connection connection = ps.getConnection();
+            ps.setLong(1, extendBelowSeconds);
+            ps.setLong(2, sessionTimeoutSeconds);
+            ps.setArray(3, connection.createArrayOf("varchar", sessionIds.toArray()));
+            ps.setArray(4, connection.createArrayOf("bigint", accessedAt));
+        });
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private Map<String, Long> touches = new HashMap<>();
+
+        void record(String sessionId, long accessedAtMillis) {
+            lock.lock();
+            try {
+                touches.merge(sessionId, accessedAtMillis, Math::max);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Map<String, Long> drain() {
+            lock.lock();
+            try {
+                Map<String, Long> drained = touches;
+                touches = new HashMap<>();
+                return drained;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
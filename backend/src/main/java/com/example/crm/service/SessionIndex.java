@@ -0,0 +1,300 @@
+package com.example.crm.service;
+
+import com.example.crm.model.UserSession;
+import com.example.crm.repository.UserSessionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of session validity keyed by sessionId, held off-heap in a memory-mapped
+ * {@link MappedSessionTable} so millions of sessions cost the GC nothing and the
+ * index is still warm after a restart.
+ *
+ * SessionService writes every create/deactivate through to the index, and sessions
+ * it doesn't know are loaded lazily from user_sessions on first use; unknown
+ * sessionIds are remembered as short-lived tombstones so they don't hit the DB on
+ * every request either. A record that looks expired while still active is re-read
+ * too, since another node may have extended the session since. At startup (and then
+ * periodically) the index catches up incrementally: sessions created since the last
+ * copied user_sessions id are added and every deactivation still on record is re-applied.
+ * Expired records are swept out. Sessions that don't fit in a full table are counted
+ * in crm.session.index.full and checked against the DB instead.
+ */
+@Component
+@Slf4j
+public class SessionIndex {
+    private static final int SYNC_BATCH_SIZE = 5000;
+    private static final long FULL_WARNING_INTERVAL_MILLIS = 60_000;
+    private static final String NEW_SESSIONS_SQL = """
+            SELECT id, session_id, user_id, is_active, expired_at
+            FROM user_sessions
+            WHERE id > ? AND expired_at > now()
+            ORDER BY id
+            LIMIT ?
+            """;
+    // Every deactivation still on record, expired ones too: a node that missed one may have kept sliding its expiry
+    private static final String INACTIVE_SESSIONS_SQL = "SELECT session_id FROM user_sessions WHERE is_active = false";
+
+    private final UserSessionRepository sessionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long sessionTimeoutMillis;
+    private final long tombstoneTtlMillis;
+    private final MappedSessionTable table;
+    private final Counter full;
+    private volatile long lastFullWarning;
+    // When all of a user's sessions were last revoked, to catch loads racing a logout-all
+    private final Map<Long, Long> userRevokedAt = new ConcurrentHashMap<>();
+
+    public SessionIndex(
+            UserSessionRepository sessionRepository,
+            JdbcTemplate jdbcTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${session.timeout-minutes:30}") int sessionTimeoutMinutes,
+            @Value("${session.index.tombstone-ttl-seconds:60}") long tombstoneTtlSeconds,
+            @Value("${session.index.file:}") String file,
+            @Value("${session.index.capacity:2097152}") int capacity
+    ) {
+        this.sessionRepository = sessionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sessionTimeoutMillis = sessionTimeoutMinutes * 60_000L;
+        this.tombstoneTtlMillis = tombstoneTtlSeconds * 1000;
+        this.table = openTable(file, capacity);
+        this.full = Counter.builder("crm.session.index.full")
+                .description("Sessions not stored because the session index was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Bring a table reused from a previous run (or a fresh one) up to date before
+     * requests are served.
+     */
+    @PostConstruct
+    public void start() {
+        long begin = System.currentTimeMillis();
+        SyncResult result = synchronize();
+        log.info("Session index ready: {} records ({}), {} new and {} deactivated sessions applied in {} ms",
+                table.size(),
+                !table.isReopened() ? "new table" : table.wasShutdownClean() ? "reused" : "reused after unclean shutdown",
+                result.added(), result.deactivated(), System.currentTimeMillis() - begin);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        table.close();
+    }
+
+    public boolean isValid(String sessionId) {
+        Key key = Key.of(sessionId);
+        long record = table.read(key.high, key.low);
+        if (record == MappedSessionTable.MISSING || isActiveButExpired(record)) {
+            // The local expiry may be stale: extended on another node, or from an earlier run
+            record = load(sessionId, key, record);
+        }
+        return MappedSessionTable.stateOf(record) == MappedSessionTable.ACTIVE
+                && System.currentTimeMillis() < MappedSessionTable.expiresAtMillisOf(record);
+    }
+
+    public void put(UserSession session) {
+        Key key = Key.of(session.getSessionId());
+        if (!table.put(key.high, key.low, session.getUser().getId(),
+                session.getIsActive() ? MappedSessionTable.ACTIVE : MappedSessionTable.INACTIVE,
+                session.getExpiredAt().toInstant().toEpochMilli())) {
+            tableFull();
+        }
+    }
+
+    /**
+     * Slide the expiry of a known, active session.
+     */
+    public void touch(String sessionId) {
+        Key key = Key.of(sessionId);
+        table.extendExpiry(key.high, key.low, System.currentTimeMillis() + sessionTimeoutMillis);
+    }
+
+    public void deactivate(String sessionId) {
+        Key key = Key.of(sessionId);
+        if (!table.deactivate(key.high, key.low)) {
+            // Tombstone it so a lazy load racing this call cannot install a stale active entry
+            table.putIfAbsent(key.high, key.low, 0, MappedSessionTable.INACTIVE,
+                    System.currentTimeMillis() + sessionTimeoutMillis);
+            table.deactivate(key.high, key.low);
+        }
+    }
+
+    public void deactivateUser(Long userId) {
+        userRevokedAt.put(userId, System.currentTimeMillis());
+        table.deactivateUser(userId);
+    }
+
+    public int size() {
+        return table.size();
+    }
+
+    @Scheduled(fixedDelayString = "${session.index.sweep-interval-ms:30000}")
+    public void expireEntries() {
+        expireEntries(System.currentTimeMillis());
+    }
+
+    void expireEntries(long now) {
+        try {
+            table.sweep(now);
+        } catch (IOException e) {
+            log.warn("Could not compact the session index: {}", e.getMessage());
+        }
+        userRevokedAt.values().removeIf(revokedAt -> revokedAt + sessionTimeoutMillis < now);
+    }
+
+    @Scheduled(initialDelayString = "${session.index.sync-interval-ms:60000}",
+               fixedDelayString = "${session.index.sync-interval-ms:60000}")
+    public void synchronizeWithDatabase() {
+        try {
+            SyncResult result = synchronize();
+            log.debug("Session index sync: {} new and {} deactivated sessions", result.added(), result.deactivated());
+        } catch (RuntimeException e) {
+            log.warn("Session index sync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Pick up sessions created since the last sync (on other nodes too), in batches
+     * keyed by user_sessions.id, and re-apply every deactivation still on record.
+     */
+    SyncResult synchronize() {
+        int added = 0;
+        int[] deactivated = {0};
+        long watermark = table.watermark();
+        int batch;
+        do {
+            long[] last = {watermark};
+            batch = jdbcTemplate.query(NEW_SESSIONS_SQL, rs -> {
+                int rows = 0;
+                while (rs.next()) {
+                    Key key = Key.of(rs.getString(2));
+                    if (!table.put(key.high, key.low, rs.getLong(3),
+                            rs.getBoolean(4) ? MappedSessionTable.ACTIVE : MappedSessionTable.INACTIVE,
+                            rs.getTimestamp(5).getTime())) {
+                        tableFull();
+                    }
+                    last[0] = rs.getLong(1);
+                    rows++;
+                }
+                return rows;
+            }, watermark, SYNC_BATCH_SIZE);
+            watermark = last[0];
+            table.watermark(watermark);
+            added += batch;
+        } while (batch == SYNC_BATCH_SIZE);
+
+        jdbcTemplate.query(INACTIVE_SESSIONS_SQL, rs -> {
+            Key key = Key.of(rs.getString(1));
+            if (table.deactivate(key.high, key.low)) {
+                deactivated[0]++;
+            }
+        });
+        return new SyncResult(added, deactivated[0]);
+    }
+
+    private static boolean isActiveButExpired(long record) {
+        return MappedSessionTable.stateOf(record) == MappedSessionTable.ACTIVE
+                && System.currentTimeMillis() >= MappedSessionTable.expiresAtMillisOf(record);
+    }
+
+    // Read the session from the DB into the table, replacing the record that was found (if any)
+    private long load(String sessionId, Key key, long found) {
+        Optional<UserSession> session = sessionRepository.findBySessionId(sessionId);
+        long now = System.currentTimeMillis();
+        long userId = 0;
+        boolean active = false;
+        long expiresAt = now + tombstoneTtlMillis;
+        if (session.isPresent()) {
+            UserSession s = session.get();
+            userId = s.getUser().getId();
+            Long revokedAt = userRevokedAt.get(userId);
+            long sessionExpiresAt = s.getExpiredAt().toInstant().toEpochMilli();
+            active = s.getIsActive()
+                    && sessionExpiresAt > now
+                    && (revokedAt == null || s.getCreatedAt().toInstant().toEpochMilli() > revokedAt);
+            if (active) {
+                expiresAt = sessionExpiresAt;
+            }
+        }
+
+        int state = active ? MappedSessionTable.ACTIVE : MappedSessionTable.INACTIVE;
+        long record = found == MappedSessionTable.MISSING
+                ? MappedSessionTable.MISSING
+                : table.replace(key.high, key.low, found, userId, state, expiresAt);
+        if (record == MappedSessionTable.MISSING) {
+            // Not there to begin with, or swept out meanwhile
+            record = table.putIfAbsent(key.high, key.low, userId, state, expiresAt);
+        }
+        if (record == MappedSessionTable.MISSING) {
+            // Table full: answer from the DB without remembering it
+            tableFull();
+            return ((expiresAt / 1000) << 8) | state;
+        }
+        return record;
+    }
+
+    private void tableFull() {
+        full.increment();
+        long now = System.currentTimeMillis();
+        if (now - lastFullWarning >= FULL_WARNING_INTERVAL_MILLIS) {
+            lastFullWarning = now;
+            log.warn("Session index is full ({} of {} slots live); sessions that don't fit are checked against the DB",
+                    table.size(), table.capacity());
+        }
+    }
+
+    private static MappedSessionTable openTable(String file, int capacity) {
+        try {
+            if (!file.isBlank()) {
+                try {
+                    return MappedSessionTable.open(Path.of(file), capacity);
+                } catch (IOException e) {
+                    log.warn("Cannot use session index file {}, starting with a temporary one: {}", file, e.getMessage());
+                }
+            }
+            Path temporary = Files.createTempFile("crm-session-index", ".dat");
+            temporary.toFile().deleteOnExit();
+            return MappedSessionTable.open(temporary, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the session index", e);
+        }
+    }
+
+    record SyncResult(int added, int deactivated) {
+    }
+
+    // sessionIds are random UUIDs, whose 128 bits are the key as-is; anything else is hashed
+    private record Key(long high, long low) {
+        static Key of(String sessionId) {
+            if (sessionId.length() == 36) {
+                try {
+                    UUID uuid = UUID.fromString(sessionId);
+                    return new Key(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+                } catch (IllegalArgumentException e) {
+                    // not a UUID after all
+                }
+            }
+            ByteBuffer hash = ByteBuffer.wrap(SecureTokens.sha256(sessionId));
+            return new Key(hash.getLong(), hash.getLong());
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.crm.service;
 
 import com.example.crm.model.User;
 import com.example.crm.model.UserSession;
+import com.example.crm.repository.UserRepository;
 import com.example.crm.repository.UserSessionRepository;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.transaction.Transactional;
@@ -19,15 +20,33 @@ import java.util.UUID;
 @Slf4j
 public class SessionService {
     private final UserSessionRepository sessionRepository;
+    private final UserRepository userRepository;
+    private final SessionActivityTracker activityTracker;
+    private final SessionIndex sessionIndex;
+    private final PartitionManager partitionManager;
+    private final BatchPurger batchPurger;
+    private final RevocationRegistry revocationRegistry;
     private final int maxActiveSessions;
     private final int sessionTimeoutMinutes;
 
     public SessionService(
             UserSessionRepository sessionRepository,
+            UserRepository userRepository,
+            SessionActivityTracker activityTracker,
+            SessionIndex sessionIndex,
+            PartitionManager partitionManager,
+            BatchPurger batchPurger,
+            RevocationRegistry revocationRegistry,
             @Value("${session.max-active-sessions-per-user:3}") int maxActiveSessions,
             @Value("${session.timeout-minutes:30}") int sessionTimeoutMinutes
     ) {
         this.sessionRepository = sessionRepository;
+        this.userRepository = userRepository;
+        this.activityTracker = activityTracker;
+        this.sessionIndex = sessionIndex;
+        this.partitionManager = partitionManager;
+        this.batchPurger = batchPurger;
+        this.revocationRegistry = revocationRegistry;
         this.maxActiveSessions = maxActiveSessions;
         this.sessionTimeoutMinutes = sessionTimeoutMinutes;
     }
@@ -55,35 +74,52 @@ public class SessionService {
                 .build();
 
         UserSession saved = sessionRepository.save(session);
+        sessionIndex.put(saved);
         log.info("Created session {} for user: {} from IP: {}", sessionId, user.getUsername(), ipAddress);
         
         return saved;
     }
 
+    /**
+     * Extend the given session if it is still live and owned by the user.
+     * Returns false when it is gone, in which case the caller should create a new one.
+     */
+    public boolean extendSession(User user, String sessionId) {
+        if (sessionId == null) {
+            return false;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        int updated = sessionRepository.extendActiveSession(
+                sessionId, user.getId(), now, now.plusMinutes(sessionTimeoutMinutes));
+        if (updated == 0) {
+            return false;
+        }
+        sessionIndex.touch(sessionId);
+        log.debug("Extended session {} for user: {}", sessionId, user.getUsername());
+        return true;
+    }
+
     public Optional<UserSession> findActiveSession(String sessionId) {
         return sessionRepository.findBySessionIdAndIsActiveTrue(sessionId);
     }
 
+    @Transactional(Transactional.TxType.SUPPORTS)
     public void updateSessionActivity(String sessionId) {
-        OffsetDateTime now = OffsetDateTime.now();
-        sessionRepository.updateLastAccessedTime(sessionId, now);
-        
-        // Extend session expiry
-        Optional<UserSession> sessionOpt = findActiveSession(sessionId);
-        if (sessionOpt.isPresent()) {
-            UserSession session = sessionOpt.get();
-            session.setExpiredAt(now.plusMinutes(sessionTimeoutMinutes));
-            sessionRepository.save(session);
-        }
+        // Last access and expiry extension are written behind in batches
+        activityTracker.recordAccess(sessionId);
+        sessionIndex.touch(sessionId);
     }
 
     public void deactivateSession(String sessionId) {
         sessionRepository.deactivateBySessionId(sessionId);
+        // Broadcast to every node, this one included
+        revocationRegistry.revokeSession(sessionId);
         log.info("Deactivated session: {}", sessionId);
     }
 
     public void deactivateAllUserSessions(User user) {
         sessionRepository.deactivateAllByUser(user);
+        revocationRegistry.revokeUser(user.getId());
         log.info("Deactivated all sessions for user: {}", user.getUsername());
     }
 
@@ -91,33 +127,33 @@ public class SessionService {
         return sessionRepository.findByUserAndIsActiveTrue(user);
     }
 
+    @Transactional(Transactional.TxType.SUPPORTS)
     public boolean isSessionValid(String sessionId) {
-        Optional<UserSession> sessionOpt = findActiveSession(sessionId);
-        return sessionOpt.map(UserSession::isValid).orElse(false);
+        // Answered from memory once the session is known; first sight loads it from the DB
+        return sessionIndex.isValid(sessionId);
     }
 
+    // Runs outside a transaction: every partition operation and purge batch commits on its own
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void cleanupExpiredSessions() {
-        sessionRepository.deleteExpiredAndInactiveSessions(OffsetDateTime.now());
-        log.debug("Cleaned up expired and inactive sessions");
+        partitionManager.ensurePartitions(PartitionManager.USER_SESSIONS);
+        int dropped = partitionManager.dropExpiredPartitions(PartitionManager.USER_SESSIONS);
+        // A node that missed the revocation may have slid its local expiry past the row's, so
+        // the row is kept one more timeout for that node's next sync to replay it
+        OffsetDateTime expiredBefore = OffsetDateTime.now().minusMinutes(sessionTimeoutMinutes);
+        long purged = batchPurger.purge(limit -> sessionRepository.deleteInactiveBatch(expiredBefore, limit));
+        log.debug("Cleaned up expired and inactive sessions ({} partitions dropped, {} rows purged)", dropped, purged);
     }
 
     private void cleanupExcessiveSessions(User user) {
-        long activeSessionCount = sessionRepository.countActiveSessionsByUser(user);
-        
-        if (activeSessionCount >= maxActiveSessions) {
-            List<UserSession> activeSessions = sessionRepository.findByUserAndIsActiveTrue(user);
-            
-            // Sort by last accessed time and deactivate oldest sessions
-            activeSessions.stream()
-                    .sorted((s1, s2) -> s1.getLastAccessedAt().compareTo(s2.getLastAccessedAt()))
-                    .limit(activeSessionCount - maxActiveSessions + 1)
-                    .forEach(session -> {
-                        session.setIsActive(false);
-                        sessionRepository.save(session);
-                    });
-            
-            log.info("Cleaned up {} excessive sessions for user: {}", 
-                    activeSessionCount - maxActiveSessions + 1, user.getUsername());
+        // Concurrent logins of the same user would otherwise both see room for one more session
+        userRepository.lockById(user.getId());
+        // Keep room for the session about to be created
+        List<String> deactivated = sessionRepository.deactivateAllButNewest(user.getId(), Math.max(0, maxActiveSessions - 1));
+        deactivated.forEach(revocationRegistry::revokeSession);
+
+        if (!deactivated.isEmpty()) {
+            log.info("Cleaned up {} excessive sessions for user: {}", deactivated.size(), user.getUsername());
         }
     }
 
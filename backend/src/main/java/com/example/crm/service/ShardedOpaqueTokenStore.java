@@ -0,0 +1,235 @@
+package com.example.crm.service;
+
+import com.example.crm.config.OpaqueTokenStore;
+import com.example.crm.config.VerifiedAccessToken;
+import com.example.crm.model.OpaqueAccessToken;
+import com.example.crm.model.User;
+import com.example.crm.repository.OpaqueAccessTokenRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Issues and resolves opaque access tokens: short random strings that reference a
+ * principal and session held server-side, instead of carrying them as signed claims.
+ *
+ * Resolved tokens live in a table split into independently locked shards, so lookups
+ * from many request threads rarely meet on the same lock. Every token is also written
+ * to opaque_access_tokens (by SHA-256 only), which is where a token issued before a
+ * restart or on another node is found on first use. Tokens the table does not have are
+ * remembered for a short while, so repeated unknown or revoked tokens don't hit the DB
+ * each time; a token is always stored before it is handed out, so no valid token is
+ * ever remembered as unknown.
+ */
+@Component
+@Slf4j
+public class ShardedOpaqueTokenStore implements OpaqueTokenStore {
+    // 192 random bits, 32 characters once base64url encoded
+    private static final int TOKEN_BYTES = 24;
+
+    private final OpaqueAccessTokenRepository repository;
+    private final BatchPurger batchPurger;
+    private final Shard[] shards;
+    private final int shardMask;
+    private final Cache<Key, Boolean> unknown;
+
+    public ShardedOpaqueTokenStore(
+            OpaqueAccessTokenRepository repository,
+            BatchPurger batchPurger,
+            @Value("${security.opaque-token.shards:16}") int shardCount,
+            @Value("${security.opaque-token.unknown-ttl-seconds:30}") long unknownTtlSeconds,
+            @Value("${security.opaque-token.unknown-max-size:10000}") long unknownMaxSize
+    ) {
+        this.repository = repository;
+        this.batchPurger = batchPurger;
+        this.unknown = Caffeine.newBuilder()
+                .maximumSize(unknownMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(unknownTtlSeconds))
+                .build();
+        // Round up to a power of two so the shard is picked with a mask
+        int size = shardCount <= 1 ? 1 : Integer.highestOneBit(shardCount - 1) << 1;
+        this.shards = new Shard[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard();
+        }
+        this.shardMask = size - 1;
+    }
+
+    @Override
+    public String issue(User user, String sessionId, Instant expiresAt) {
+        String token = TOKEN_PREFIX + SecureTokens.random(TOKEN_BYTES);
+        byte[] hash = SecureTokens.sha256(token);
+        VerifiedAccessToken resolved = new VerifiedAccessToken(
+                user.getUsername(), sessionId, user.getId(), user.getRole().name(), expiresAt, tokenId(hash));
+
+        repository.insert(OpaqueAccessToken.builder()
+                .tokenHash(hash)
+                .userId(user.getId())
+                .username(user.getUsername())
+                .role(user.getRole().name())
+                .sessionId(sessionId)
+                .createdAt(OffsetDateTime.now())
+                .expiresAt(expiresAt.atOffset(ZoneOffset.UTC))
+                .build());
+        Key key = Key.of(hash);
+        shardFor(key).put(key, resolved);
+        return token;
+    }
+
+    /**
+     * The principal and session behind an unexpired token, from memory or, on first
+     * use on this node, from the table.
+     */
+    @Override
+    public Optional<VerifiedAccessToken> resolve(String token) {
+        return find(token).filter(resolved -> resolved.getExpiresAt().isAfter(Instant.now()));
+    }
+
+    @Override
+    public Optional<VerifiedAccessToken> find(String token) {
+        if (!OpaqueTokenStore.isOpaque(token)) {
+            return Optional.empty();
+        }
+        byte[] hash = SecureTokens.sha256(token);
+        Key key = Key.of(hash);
+        Shard shard = shardFor(key);
+        VerifiedAccessToken resolved = shard.get(key);
+        if (resolved != null) {
+            return Optional.of(resolved);
+        }
+        if (unknown.getIfPresent(key) != null) {
+            return Optional.empty();
+        }
+        Optional<VerifiedAccessToken> loaded = repository.findByTokenHash(hash).map(row -> new VerifiedAccessToken(
+                row.getUsername(), row.getSessionId(), row.getUserId(), row.getRole(),
+                row.getExpiresAt().toInstant(), tokenId(hash)));
+        if (loaded.isPresent()) {
+            shard.put(key, loaded.get());
+        } else {
+            unknown.put(key, Boolean.TRUE);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void revoke(String token) {
+        if (!OpaqueTokenStore.isOpaque(token)) {
+            return;
+        }
+        byte[] hash = SecureTokens.sha256(token);
+        Key key = Key.of(hash);
+        shardFor(key).remove(key);
+        repository.deleteByTokenHash(hash);
+        unknown.put(key, Boolean.TRUE);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    /**
+     * Drop expired tokens from this node's memory.
+     */
+    @Scheduled(fixedDelayString = "${security.opaque-token.evict-interval-ms:60000}")
+    public void evictExpired() {
+        Instant now = Instant.now();
+        for (Shard shard : shards) {
+            shard.removeExpired(now);
+        }
+    }
+
+    /**
+     * Delete expired tokens from the table in bounded batches. Runs with the cluster-wide
+     * session cleanup job.
+     */
+    public long purgeExpired() {
+        OffsetDateTime now = OffsetDateTime.now();
+        long purged = batchPurger.purge(limit -> repository.deleteExpiredBatch(now, limit));
+        log.debug("Purged {} expired opaque access tokens", purged);
+        return purged;
+    }
+
+    private Shard shardFor(Key key) {
+        return shards[(int) key.high & shardMask];
+    }
+
+    // Identifies the token for revocation without exposing it: the hex of half its hash
+    private static String tokenId(byte[] hash) {
+        return HexFormat.of().formatHex(hash, 0, 16);
+    }
+
+    private record Key(long high, long low) {
+        static Key of(byte[] hash) {
+            ByteBuffer buffer = ByteBuffer.wrap(hash);
+            return new Key(buffer.getLong(), buffer.getLong());
+        }
+    }
+
+    private static final class Shard {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<Key, VerifiedAccessToken> entries = new HashMap<>();
+
+        VerifiedAccessToken get(Key key) {
+            lock.readLock().lock();
+            try {
+                return entries.get(key);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void put(Key key, VerifiedAccessToken value) {
+            lock.writeLock().lock();
+            try {
+                entries.put(key, value);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Key key) {
+            lock.writeLock().lock();
+            try {
+                entries.remove(key);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void removeExpired(Instant now) {
+            lock.writeLock().lock();
+            try {
+                entries.values().removeIf(value -> !value.getExpiresAt().isAfter(now));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return entries.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
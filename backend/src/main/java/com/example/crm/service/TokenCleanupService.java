@@ -4,16 +4,27 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
 @Slf4j
 public class TokenCleanupService {
     
+    // Held while running and for most of the period afterwards, so each tick runs on one node only;
+    // a node that dies mid-run gives the job up after LOCK_AT_MOST_FOR
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(10);
+
     private final RefreshTokenService refreshTokenService;
     private final SessionService sessionService;
+    private final ScheduledJobLock jobLock;
+    private final ShardedOpaqueTokenStore opaqueTokenStore;
 
-    public TokenCleanupService(RefreshTokenService refreshTokenService, SessionService sessionService) {
+    public TokenCleanupService(RefreshTokenService refreshTokenService, SessionService sessionService,
+                               ScheduledJobLock jobLock, ShardedOpaqueTokenStore opaqueTokenStore) {
         this.refreshTokenService = refreshTokenService;
         this.sessionService = sessionService;
+        this.jobLock = jobLock;
+        this.opaqueTokenStore = opaqueTokenStore;
     }
 
     /**
@@ -22,9 +33,11 @@ public class TokenCleanupService {
     @Scheduled(fixedRate = 3600000) // 1 hour = 3600000 ms
     public void cleanupExpiredRefreshTokens() {
         try {
-            log.debug("Starting cleanup of expired refresh tokens");
-            refreshTokenService.cleanupExpiredTokens();
-            log.debug("Completed cleanup of expired refresh tokens");
+            jobLock.runExclusively("refresh-token-cleanup", LOCK_AT_MOST_FOR, Duration.ofMinutes(55), () -> {
+                log.debug("Starting cleanup of expired refresh tokens");
+                refreshTokenService.cleanupExpiredTokens();
+                log.debug("Completed cleanup of expired refresh tokens");
+            });
         } catch (Exception e) {
             log.error("Error during refresh token cleanup", e);
         }
@@ -36,9 +49,12 @@ public class TokenCleanupService {
     @Scheduled(fixedRate = 1800000) // 30 minutes = 1800000 ms
     public void cleanupExpiredSessions() {
         try {
-            log.debug("Starting cleanup of expired sessions");
-            sessionService.cleanupExpiredSessions();
-            log.debug("Completed cleanup of expired sessions");
+            jobLock.runExclusively("session-cleanup", LOCK_AT_MOST_FOR, Duration.ofMinutes(25), () -> {
+                log.debug("Starting cleanup of expired sessions");
+                sessionService.cleanupExpiredSessions();
+                opaqueTokenStore.purgeExpired();
+                log.debug("Completed cleanup of expired sessions");
+            });
         } catch (Exception e) {
             log.error("Error during session cleanup", e);
         }
@@ -0,0 +1,57 @@
+package com.example.crm.service;
+
+import com.example.crm.model.User;
+import com.example.crm.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Short-lived cache of account status flags, used when the auth filter builds
+ * principals from token claims instead of loading the user per request.
+ * Entries are refreshed from the DB at most every {@code security.user-status.cache-ttl-seconds},
+ * which bounds how long a lockout can take to apply; {@link #invalidate(Long)}
+ * applies it immediately on this node.
+ */
+@Component
+@Slf4j
+public class UserStatusCache {
+    // userId -> whether the account may currently authenticate
+    private final LoadingCache<Long, Boolean> statuses;
+
+    public UserStatusCache(
+            UserRepository userRepository,
+            @Value("${security.user-status.cache-ttl-seconds:30}") long ttlSeconds,
+            @Value("${security.user-status.cache-max-size:10000}") long maxSize
+    ) {
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build(userId -> userRepository.findById(userId)
+                        .map(UserStatusCache::isUsable)
+                        .orElse(false));
+    }
+
+    /**
+     * True if the account may authenticate: enabled, not locked and not expired.
+     */
+    public boolean isAccountUsable(Long userId) {
+        return userId != null && statuses.get(userId);
+    }
+
+    public void invalidate(Long userId) {
+        statuses.invalidate(userId);
+        log.debug("Invalidated cached account status for user id {}", userId);
+    }
+
+    private static boolean isUsable(User user) {
+        return Boolean.TRUE.equals(user.getIsEnabled())
+                && Boolean.TRUE.equals(user.getIsAccountNonLocked())
+                && Boolean.TRUE.equals(user.getIsAccountNonExpired())
+                && Boolean.TRUE.equals(user.getIsCredentialsNonExpired());
+    }
+}
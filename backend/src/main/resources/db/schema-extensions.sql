@@ -0,0 +1,273 @@
+-- PostgreSQL-specific schema objects on top of the Hibernate-managed tables.
+-- Applied on every startup by SchemaExtensionsInitializer, so every statement must be idempotent.
+
+-- ===== REFRESH TOKEN HASHES =====
+-- Tokens used to be stored in plaintext in refresh_tokens.token. Hash any remaining
+-- rows into token_hash and drop the plaintext column.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'refresh_tokens' AND column_name = 'token') THEN
+        ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash bytea;
+        UPDATE refresh_tokens SET token_hash = sha256(convert_to(token, 'UTF8')) WHERE token_hash IS NULL;
+        ALTER TABLE refresh_tokens DROP COLUMN token;
+    END IF;
+END
+$$;
+-- The mapping leaves token_hash nullable so Hibernate can add it next to existing rows
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+
+-- ===== DAILY PARTITIONS =====
+-- user_sessions and refresh_tokens are range-partitioned by created_at, one partition
+-- per UTC day (<table>_pYYYYMMDD) plus <table>_default for anything outside them.
+-- created_at never changes, so extending a session or token never moves its row to
+-- another partition. Expired data is removed by dropping whole partitions once the
+-- latest expiry in them has passed (see PartitionManager).
+
+-- Create the partition for one day. Rows that already landed in the default
+-- partition for that day are moved over first, so the attach cannot fail.
+CREATE OR REPLACE FUNCTION crm_ensure_daily_partition(parent text, day date) RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    part text := format('%s_p%s', parent, to_char(day, 'YYYYMMDD'));
+    from_ts timestamptz := day::timestamp AT TIME ZONE 'UTC';
+    to_ts timestamptz := (day + 1)::timestamp AT TIME ZONE 'UTC';
+    key text;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext(part));
+    IF to_regclass(part) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    SELECT a.attname INTO key
+    FROM pg_partitioned_table pt
+    JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0]
+    WHERE pt.partrelid = parent::regclass;
+
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS)', part, parent);
+    EXECUTE format('WITH moved AS (DELETE FROM %I WHERE %I >= $1 AND %I < $2 RETURNING *) '
+                   || 'INSERT INTO %I SELECT * FROM moved', parent || '_default', key, key, part)
+        USING from_ts, to_ts;
+    -- ATTACH only needs SHARE UPDATE EXCLUSIVE on the parent, so traffic keeps flowing
+    EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+                   parent, part, from_ts, to_ts);
+    RETURN true;
+END
+$$;
+
+DROP FUNCTION IF EXISTS crm_drop_daily_partitions_before(text, date);
+
+-- Drop every daily partition from before today whose latest expiry lies before
+-- expired_before. Rows are only ever extended while they are unexpired, so once
+-- that holds for a past day's partition it keeps holding and nothing is lost.
+-- The latest expiry is read from the end of the partition's expiry index (see
+-- INDEXES), one probe per partition however many rows it holds.
+CREATE OR REPLACE FUNCTION crm_drop_expired_partitions(parent text, expiry text, expired_before timestamptz)
+RETURNS integer
+LANGUAGE plpgsql AS $$
+DECLARE
+    part record;
+    last_expiry timestamptz;
+    dropped integer := 0;
+BEGIN
+    -- Give up rather than queue behind long readers; the next run tries again
+    PERFORM set_config('lock_timeout', '2s', true);
+    FOR part IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent::regclass
+          AND c.relname ~ ('^' || parent || '_p[0-9]{8}$')
+          AND to_date(right(c.relname, 8), 'YYYYMMDD') < (now() AT TIME ZONE 'UTC')::date
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('SELECT max(%I) FROM %I', expiry, part.relname) INTO last_expiry;
+        CONTINUE WHEN last_expiry >= expired_before;
+        BEGIN
+            EXECUTE format('DROP TABLE %I', part.relname);
+            dropped := dropped + 1;
+        EXCEPTION WHEN lock_not_available THEN
+            RAISE NOTICE 'skipped % (in use)', part.relname;
+        END;
+    END LOOP;
+    RETURN dropped;
+END
+$$;
+
+-- Partition a table by day of key: either a plain Hibernate-created table or one
+-- partitioned by another column (earlier versions partitioned by expiry). Only live
+-- rows, judged by the expiry column, are carried over; expired ones would be dropped
+-- with their partition anyway. IDENTITY is not allowed on partitioned tables (before
+-- PostgreSQL 17), so id keeps or gets a plain sequence default.
+DROP FUNCTION IF EXISTS crm_partition_by_day(text, text);
+
+CREATE OR REPLACE FUNCTION crm_partition_by_day(parent text, key text, expiry text) RETURNS void
+LANGUAGE plpgsql AS $$
+DECLARE
+    legacy text := parent || '_legacy';
+    seq text := parent || '_id_seq';
+    kind "char";
+    current_key text;
+    old_part record;
+    max_id bigint;
+    day date;
+BEGIN
+    -- Nodes starting together would otherwise both try the conversion
+    PERFORM pg_advisory_xact_lock(hashtext('crm_partition_by_day:' || parent));
+
+    SELECT c.relkind, a.attname INTO kind, current_key
+    FROM pg_class c
+    LEFT JOIN pg_partitioned_table pt ON pt.partrelid = c.oid
+    LEFT JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0]
+    WHERE c.oid = to_regclass(parent);
+    IF kind IS NULL OR (kind = 'p' AND current_key = key) THEN
+        RETURN;
+    END IF;
+
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', parent, legacy);
+    EXECUTE format('ALTER INDEX IF EXISTS %I RENAME TO %I', parent || '_pkey', legacy || '_pkey');
+    -- Old partitions keep their names, which the new ones are about to take
+    FOR old_part IN
+        SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = legacy::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %I RENAME TO %I', old_part.relname,
+                       legacy || substr(old_part.relname, length(parent) + 1));
+    END LOOP;
+
+    -- The primary key of a partitioned table has to include the partition key
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS, PRIMARY KEY (id, %I), '
+                   || 'FOREIGN KEY (user_id) REFERENCES users (id)) PARTITION BY RANGE (%I)',
+                   parent, legacy, key, key);
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', parent || '_default', parent);
+
+    FOR day IN EXECUTE format('SELECT DISTINCT (%I AT TIME ZONE ''UTC'')::date FROM %I WHERE %I >= now()',
+                              key, legacy, expiry)
+    LOOP
+        PERFORM crm_ensure_daily_partition(parent, day);
+    END LOOP;
+    EXECUTE format('INSERT INTO %I SELECT * FROM %I WHERE %I >= now()', parent, legacy, expiry);
+
+    IF (SELECT attidentity FROM pg_attribute WHERE attrelid = legacy::regclass AND attname = 'id') = '' THEN
+        -- serial: the copied default already points at the sequence, just hand it over
+        EXECUTE format('ALTER SEQUENCE %I OWNED BY %I.id', seq, parent);
+        EXECUTE format('DROP TABLE %I', legacy);
+    ELSE
+        -- identity: its sequence goes with the old table, so start a new one after it
+        EXECUTE format('SELECT max(id) FROM %I', legacy) INTO max_id;
+        EXECUTE format('DROP TABLE %I', legacy);
+        EXECUTE format('CREATE SEQUENCE %I OWNED BY %I.id', seq, parent);
+        PERFORM setval(seq, COALESCE(max_id, 0) + 1, false);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', parent, seq);
+    END IF;
+END
+$$;
+
+SELECT crm_partition_by_day('user_sessions', 'created_at', 'expired_at');
+SELECT crm_partition_by_day('refresh_tokens', 'created_at', 'expiry_date');
+
+-- ddl-auto=update does not see partitioned tables, so columns added later go here.
+-- The session a refresh token was issued with (null for tokens issued before)
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS session_id varchar(255);
+
+-- Drop foreign keys Hibernate added next to the ones created above
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN
+        SELECT conrelid::regclass AS tbl, conname
+        FROM pg_constraint
+        WHERE contype = 'f'
+          AND conrelid IN ('user_sessions'::regclass, 'refresh_tokens'::regclass)
+          AND conname NOT IN ('user_sessions_user_id_fkey', 'refresh_tokens_user_id_fkey')
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.tbl, fk.conname);
+    END LOOP;
+END
+$$;
+
+-- ===== INDEXES =====
+-- Created on the partitioned parents, so every partition gets them. A unique index
+-- on a partitioned table has to include the partition key, so session_id and
+-- token_hash get plain indexes and uniqueness is checked by the trigger below.
+CREATE INDEX IF NOT EXISTS idx_user_sessions_session_id
+    ON user_sessions (session_id);
+
+-- Refresh looks tokens up by hash and checks owner, expiry and revocation;
+-- INCLUDE lets that check run from the index alone.
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_token_hash
+    ON refresh_tokens (token_hash) INCLUDE (user_id, expiry_date, is_revoked);
+
+-- Reject a row whose value in column (TG_ARGV[1]) already exists anywhere in the
+-- partitioned table (TG_ARGV[0]). Inserts of the same value are serialized on an
+-- advisory lock, and under READ COMMITTED the check after it sees the other row once
+-- its transaction has committed, so two of them cannot both get through.
+CREATE OR REPLACE FUNCTION crm_check_unique() RETURNS trigger
+LANGUAGE plpgsql AS $$
+DECLARE
+    parent text := TG_ARGV[0];
+    col text := TG_ARGV[1];
+    value text;
+    taken boolean;
+BEGIN
+    EXECUTE format('SELECT ($1).%I::text', col) INTO value USING NEW;
+    PERFORM pg_advisory_xact_lock(hashtext(parent || '.' || col || '=' || value));
+    EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE %I = ($1).%I)', parent, col, col)
+        INTO taken USING NEW;
+    IF taken THEN
+        RAISE EXCEPTION 'duplicate key value violates uniqueness of %.%', parent, col
+            USING ERRCODE = 'unique_violation';
+    END IF;
+    RETURN NEW;
+END
+$$;
+
+CREATE OR REPLACE TRIGGER trg_user_sessions_session_id_unique
+    BEFORE INSERT ON user_sessions
+    FOR EACH ROW EXECUTE FUNCTION crm_check_unique('user_sessions', 'session_id');
+
+CREATE OR REPLACE TRIGGER trg_refresh_tokens_token_hash_unique
+    BEFORE INSERT ON refresh_tokens
+    FOR EACH ROW EXECUTE FUNCTION crm_check_unique('refresh_tokens', 'token_hash');
+
+-- Cap enforcement only ever ranks a user's active rows, so index exactly those;
+-- its cost stays constant no matter how many inactive/revoked rows pile up.
+CREATE INDEX IF NOT EXISTS idx_user_sessions_active_by_user
+    ON user_sessions (user_id, last_accessed_at DESC, id DESC)
+    WHERE is_active;
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_active_by_user
+    ON refresh_tokens (user_id, created_at DESC, id DESC)
+    WHERE NOT is_revoked;
+
+-- Partition cleanup only needs each past partition's latest expiry (max() walks in
+-- from the end of these), never a scan of its rows
+CREATE INDEX IF NOT EXISTS idx_user_sessions_expired_at
+    ON user_sessions (expired_at);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expiry_date
+    ON refresh_tokens (expiry_date);
+
+-- Deactivated sessions are replayed by nodes catching up, and purged in small chunks
+-- once they have expired
+DROP INDEX IF EXISTS idx_user_sessions_inactive;
+CREATE INDEX IF NOT EXISTS idx_user_sessions_inactive_by_expiry
+    ON user_sessions (expired_at) INCLUDE (session_id)
+    WHERE NOT is_active;
+
+-- Revoked tokens in partitions that have not expired yet are purged in small chunks
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_revoked
+    ON refresh_tokens (id)
+    WHERE is_revoked;
+
+-- ===== KEYSET PAGINATION =====
+-- Pending tasks are paged by (due_date, id) among incomplete activities only
+CREATE INDEX IF NOT EXISTS idx_activities_pending ON activities (due_date, id) WHERE completed = false;
+
+-- =========================================================================
+-- BULK IMPORT
+-- =========================================================================
+-- Companies imported in bulk are matched to existing ones by name, ignoring case
+CREATE INDEX IF NOT EXISTS idx_companies_name_lower ON companies (lower(name));
@@ -0,0 +1,83 @@
+package com.example.crm.benchmark;
+
+import com.example.crm.config.JwtTokenProvider;
+import com.example.crm.config.VerifiedAccessToken;
+import com.example.crm.model.User;
+import com.example.crm.model.enums.AccessTokenFormat;
+import com.example.crm.repository.OpaqueAccessTokenRepository;
+import com.example.crm.service.ShardedOpaqueTokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Per-request cost of resolving the Authorization header in each access token format,
+ * with four request threads spread over a pool of live tokens.
+ *
+ * cached is the steady state (JWTs served from the verified-token cache), uncached
+ * re-verifies the JWT signature every time, as for a token seen for the first time
+ * or once the cache has overflowed. Opaque tokens take the same path in both.
+ * The header size of each format is printed at setup.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=AccessTokenFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class AccessTokenFormatBenchmark {
+    private static final int LIVE_TOKENS = 1000;
+
+    @Param({"JWT", "OPAQUE"})
+    public AccessTokenFormat format;
+
+    private JwtTokenProvider tokenProvider;
+    private JwtTokenProvider uncachedTokenProvider;
+    private String[] authHeaders;
+
+    @Setup
+    public void setUp() {
+        ShardedOpaqueTokenStore opaqueTokenStore = new ShardedOpaqueTokenStore(
+                mock(OpaqueAccessTokenRepository.class), null, 16, 30, 10_000);
+        tokenProvider = new JwtTokenProvider(JwtAuthenticationBenchmark.ACCESS_SECRET,
+                JwtAuthenticationBenchmark.REFRESH_SECRET, 15, 7, 10_000, opaqueTokenStore, new SimpleMeterRegistry());
+        uncachedTokenProvider = new JwtTokenProvider(JwtAuthenticationBenchmark.ACCESS_SECRET,
+                JwtAuthenticationBenchmark.REFRESH_SECRET, 15, 7, 0, opaqueTokenStore, new SimpleMeterRegistry());
+
+        authHeaders = new String[LIVE_TOKENS];
+        long headerBytes = 0;
+        for (int i = 0; i < LIVE_TOKENS; i++) {
+            User user = User.builder()
+                    .id((long) i)
+                    .username("benchmark" + i)
+                    .email("benchmark" + i + "@curema.com")
+                    .role(User.Role.ADMIN)
+                    .build();
+            authHeaders[i] = "Bearer " + tokenProvider.generateAccessToken(user, UUID.randomUUID().toString(), format);
+            headerBytes += authHeaders[i].length();
+        }
+        System.out.printf("%n%s Authorization header: %d bytes on average%n", format, headerBytes / LIVE_TOKENS);
+    }
+
+    @Benchmark
+    public VerifiedAccessToken cached() {
+        return tokenProvider.verifyAccessToken(nextHeader().substring(7)).orElseThrow();
+    }
+
+    @Benchmark
+    public VerifiedAccessToken uncached() {
+        return uncachedTokenProvider.verifyAccessToken(nextHeader().substring(7)).orElseThrow();
+    }
+
+    private String nextHeader() {
+        return authHeaders[ThreadLocalRandom.current().nextInt(LIVE_TOKENS)];
+    }
+}
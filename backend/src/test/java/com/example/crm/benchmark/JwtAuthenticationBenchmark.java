@@ -0,0 +1,82 @@
+package com.example.crm.benchmark;
+
+import com.example.crm.config.JwtTokenProvider;
+import com.example.crm.config.VerifiedAccessToken;
+import com.example.crm.model.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.security.Key;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of access token handling in JwtAuthenticationFilter.
+ *
+ * legacyThreeParses reproduces the old filter: validate, username and sessionId
+ * lookups, each building a fresh parser and re-verifying the HS512 signature.
+ * verifyOnce parses a single time with the verified-token cache disabled,
+ * verifyCached is the steady state where a client repeats the same token.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=JwtAuthenticationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+    static final String ACCESS_SECRET =
+            "VerySecretKeyForAccessTokenSigning1234567890ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    static final String REFRESH_SECRET =
+            "VerySecretKeyForRefreshTokenSigning0987654321FEDCBAZYXWVUTSRQPONMLKJIHGFEDCBAzyxwvutsrqponmlkjihgfedcba9876543210";
+
+    private JwtTokenProvider tokenProvider;
+    private JwtTokenProvider uncachedTokenProvider;
+    private Key accessTokenKey;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider(ACCESS_SECRET, REFRESH_SECRET, 15, 7, 1000, null, new SimpleMeterRegistry());
+        uncachedTokenProvider = new JwtTokenProvider(ACCESS_SECRET, REFRESH_SECRET, 15, 7, 0, null, new SimpleMeterRegistry());
+        accessTokenKey = Keys.hmacShaKeyFor(ACCESS_SECRET.getBytes());
+        User user = User.builder()
+                .id(42L)
+                .username("benchmark")
+                .email("benchmark@curema.com")
+                .role(User.Role.ADMIN)
+                .build();
+        token = tokenProvider.generateAccessToken(user, UUID.randomUUID().toString());
+    }
+
+    @Benchmark
+    public void legacyThreeParses(Blackhole bh) {
+        bh.consume("access".equals(legacyClaims().get("tokenType", String.class)));
+        bh.consume(legacyClaims().getSubject());
+        bh.consume(legacyClaims().get("sessionId", String.class));
+    }
+
+    @Benchmark
+    public VerifiedAccessToken verifyOnce() {
+        return uncachedTokenProvider.verifyAccessToken(token).orElseThrow();
+    }
+
+    @Benchmark
+    public VerifiedAccessToken verifyCached() {
+        return tokenProvider.verifyAccessToken(token).orElseThrow();
+    }
+
+    private Claims legacyClaims() {
+        return Jwts.parserBuilder()
+                .setSigningKey(accessTokenKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.crm.benchmark;
+
+import com.example.crm.CrmBackendApplication;
+import com.example.crm.dto.AuthRequest;
+import com.example.crm.dto.AuthResponse;
+import com.example.crm.model.User;
+import com.example.crm.repository.UserRepository;
+import com.example.crm.service.AuthService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency distribution of AuthService.login against a real database,
+ * reported as percentiles (SampleTime). BCrypt is pinned to cost 4 so the numbers
+ * show the statement pipeline rather than hashing.
+ *
+ * Needs a PostgreSQL instance; point it elsewhere with -Dspring.datasource.url=...
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=LoginBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(1)
+@Fork(1)
+public class LoginBenchmark {
+    private static final String USERNAME = "login-benchmark";
+    private static final String PASSWORD = "benchmark-password";
+
+    private ConfigurableApplicationContext context;
+    private AuthService authService;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CrmBackendApplication.class)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.example.crm=WARN",
+                        "--security.password.bcrypt.strength=4");
+        authService = context.getBean(AuthService.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        if (userRepository.findByUsername(USERNAME).isEmpty()) {
+            User user = new User();
+            user.setUsername(USERNAME);
+            user.setEmail(USERNAME + "@curema.com");
+            user.setPasswordHash(PASSWORD);
+            authService.register(user);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public AuthResponse login() {
+        AuthRequest request = new AuthRequest();
+        request.setUsername(USERNAME);
+        request.setPassword(PASSWORD);
+
+        MockHttpServletRequest httpRequest = new MockHttpServletRequest("POST", "/api/auth/login");
+        httpRequest.addHeader("User-Agent", "LoginBenchmark");
+        httpRequest.setRemoteAddr("127.0.0.1");
+        return authService.login(request, httpRequest);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.crm.benchmark;
+
+import com.example.crm.CrmBackendApplication;
+import com.example.crm.dto.ContactDto;
+import com.example.crm.model.Company;
+import com.example.crm.model.Contact;
+import com.example.crm.repository.CompanyRepository;
+import com.example.crm.repository.ContactRepository;
+import com.example.crm.service.PageCursor;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per row of reading a page of contacts into DTOs against a real database.
+ *
+ * entities reproduces the old read path: managed Contact entities loaded in a read-write
+ * transaction (snapshots, dirty checking and a flush at commit), then copied into
+ * ContactDto. projections is ContactRepository.findPage: a DTO constructor query in a
+ * read-only transaction. Scores are per row; with the GC profiler, gc.alloc.rate.norm
+ * is the bytes allocated per row.
+ *
+ * Needs a PostgreSQL instance; point it elsewhere with -Dspring.datasource.url=...
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ReadPathBenchmark -Djmh.args="-prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(1)
+@Fork(1)
+public class ReadPathBenchmark {
+    private static final int ROWS = 1000;
+    private static final int COMPANIES = 50;
+
+    private ConfigurableApplicationContext context;
+    private ContactRepository contactRepo;
+    private CompanyRepository companyRepo;
+    private EntityManager entityManager;
+    private TransactionTemplate readWriteTransaction;
+    private TransactionTemplate readOnlyTransaction;
+    private final List<Company> companies = new ArrayList<>();
+    private final List<Contact> contacts = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(CrmBackendApplication.class)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.com.example.crm=WARN");
+        contactRepo = context.getBean(ContactRepository.class);
+        companyRepo = context.getBean(CompanyRepository.class);
+        entityManager = context.getBean(EntityManager.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        // The newest ROWS contacts, so one first page reads exactly these
+        String run = UUID.randomUUID().toString();
+        for (int i = 0; i < COMPANIES; i++) {
+            Company company = new Company();
+            company.setName("Read path " + run + " " + i);
+            companies.add(company);
+        }
+        companyRepo.saveAll(companies);
+        for (int i = 0; i < ROWS; i++) {
+            Contact contact = new Contact();
+            contact.setCompany(companies.get(i % COMPANIES));
+            contact.setFirstName("Read");
+            contact.setLastName("Path " + i);
+            contact.setEmail("read-path-" + i + "-" + run + "@example.com");
+            contact.setPhone("+30 2310 000" + i);
+            contact.setJobTitle("Buyer");
+            contacts.add(contact);
+        }
+        contactRepo.saveAll(contacts);
+    }
+
+    @TearDown
+    public void tearDown() {
+        contactRepo.deleteAllInBatch(contacts);
+        companyRepo.deleteAllInBatch(companies);
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<ContactDto> entities() {
+        PageCursor start = PageCursor.start(true);
+        return readWriteTransaction.execute(status -> {
+            List<Contact> rows = entityManager.createQuery(
+                            "SELECT c FROM Contact c WHERE (c.createdAt, c.id) < (:createdAt, :id) " +
+                            "ORDER BY c.createdAt DESC, c.id DESC", Contact.class)
+                    .setParameter("createdAt", start.sortKey())
+                    .setParameter("id", start.id())
+                    .setMaxResults(ROWS)
+                    .getResultList();
+            List<ContactDto> dtos = new ArrayList<>(rows.size());
+            for (Contact c : rows) {
+                dtos.add(toDto(c));
+            }
+            return dtos;
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<ContactDto> projections() {
+        PageCursor start = PageCursor.start(true);
+        return readOnlyTransaction.execute(status -> contactRepo.findPage(start.sortKey(), start.id(), ROWS));
+    }
+
+    // The field-by-field copy ContactService used for reads
+    private static ContactDto toDto(Contact c) {
+        ContactDto dto = new ContactDto();
+        dto.setId(c.getId());
+        dto.setCompanyId(c.getCompany() != null ? c.getCompany().getId() : null);
+        dto.setFirstName(c.getFirstName());
+        dto.setLastName(c.getLastName());
+        dto.setEmail(c.getEmail());
+        dto.setPhone(c.getPhone());
+        dto.setJobTitle(c.getJobTitle());
+        dto.setCreatedAt(c.getCreatedAt());
+        dto.setUpdatedAt(c.getUpdatedAt());
+        return dto;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.crm.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalibratedBCryptPasswordEncoderTests {
+
+    @Test
+    void upgradeEncodingFlagsAnyDifferentCost() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+        assertFalse(encoder.upgradeEncoding(encoder.encode("secret")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret")));
+        assertFalse(encoder.upgradeEncoding("not-a-bcrypt-hash"));
+    }
+
+    @Test
+    void calibrationStaysWithinBounds() {
+        int strength = CalibratedBCryptPasswordEncoder.calibrateStrength(1, 4, 6);
+
+        assertTrue(strength >= 4 && strength <= 6);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.crm.config;
+
+import com.example.crm.service.AuthService;
+import com.example.crm.service.RevocationRegistry;
+import com.example.crm.service.UserStatusCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTests {
+    private final JwtTokenProvider tokenProvider = mock(JwtTokenProvider.class);
+    private final CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+    private final AuthService authService = mock(AuthService.class);
+    private final UserStatusCache userStatusCache = mock(UserStatusCache.class);
+    private final RevocationRegistry revocationRegistry = mock(RevocationRegistry.class);
+    private JwtAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, authService,
+                userStatusCache, revocationRegistry, true);
+        VerifiedAccessToken verified = new VerifiedAccessToken(
+                "jdoe", "session-1", 7L, "ADMIN", Instant.now().plusSeconds(60), "jti-1");
+        when(tokenProvider.verifyAccessToken("token")).thenReturn(Optional.of(verified));
+        when(authService.isSessionValid("session-1")).thenReturn(true);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void principalIsBuiltFromClaimsWithoutLoadingTheUser() throws Exception {
+        when(userStatusCache.isAccountUsable(7L)).thenReturn(true);
+
+        Authentication authentication = authenticate();
+
+        assertNotNull(authentication);
+        assertEquals("jdoe", authentication.getName());
+        assertEquals("ROLE_ADMIN", authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).findFirst().orElseThrow());
+        verify(userDetailsService, never()).loadUserByUsername(any());
+    }
+
+    @Test
+    void unusableAccountIsNotAuthenticated() throws Exception {
+        when(userStatusCache.isAccountUsable(7L)).thenReturn(false);
+
+        assertNull(authenticate());
+        verify(userDetailsService, never()).loadUserByUsername(any());
+    }
+
+    @Test
+    void revokedSessionIsNotAuthenticated() throws Exception {
+        when(userStatusCache.isAccountUsable(7L)).thenReturn(true);
+        when(revocationRegistry.isRevoked("session-1")).thenReturn(true);
+
+        assertNull(authenticate());
+    }
+
+    private Authentication authenticate() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/companies");
+        request.addHeader("Authorization", "Bearer token");
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
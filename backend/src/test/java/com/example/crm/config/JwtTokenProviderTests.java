@@ -0,0 +1,164 @@
+package com.example.crm.config;
+
+import com.example.crm.model.OpaqueAccessToken;
+import com.example.crm.model.User;
+import com.example.crm.model.enums.AccessTokenFormat;
+import com.example.crm.repository.OpaqueAccessTokenRepository;
+import com.example.crm.service.ShardedOpaqueTokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtTokenProviderTests {
+    private static final String ACCESS_SECRET =
+            "TestAccessTokenSecret-0123456789-ABCDEFGHIJKLMNOPQRSTUVWXYZ-abcdefghijklmnopqrstuvwxyz";
+    private static final String REFRESH_SECRET =
+            "TestRefreshTokenSecret-9876543210-ZYXWVUTSRQPONMLKJIHGFEDCBA-zyxwvutsrqponmlkjihgfedcba";
+
+    private final OpaqueAccessTokenRepository opaqueTokenRepository = mock(OpaqueAccessTokenRepository.class);
+    private final OpaqueTokenStore opaqueTokenStore = new ShardedOpaqueTokenStore(opaqueTokenRepository, null, 4, 30, 1000);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JwtTokenProvider tokenProvider;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider(ACCESS_SECRET, REFRESH_SECRET, 15, 7, 1000, opaqueTokenStore, meterRegistry);
+        user = User.builder()
+                .id(7L)
+                .username("jdoe")
+                .email("jdoe@curema.com")
+                .role(User.Role.ADMIN)
+                .build();
+    }
+
+    @Test
+    void verifyAccessTokenExposesAllClaims() {
+        String token = tokenProvider.generateAccessToken(user, "session-1");
+
+        VerifiedAccessToken verified = tokenProvider.verifyAccessToken(token).orElseThrow();
+
+        assertEquals("jdoe", verified.getUsername());
+        assertEquals("session-1", verified.getSessionId());
+        assertEquals(7L, verified.getUserId());
+        assertEquals("ADMIN", verified.getRole());
+        assertNotNull(verified.getExpiresAt());
+    }
+
+    @Test
+    void verifyAccessTokenRejectsTamperedToken() {
+        String token = tokenProvider.generateAccessToken(user, "session-1");
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(tokenProvider.verifyAccessToken(tampered).isEmpty());
+    }
+
+    @Test
+    void verifyAccessTokenRejectsExpiredToken() {
+        JwtTokenProvider expiring = new JwtTokenProvider(ACCESS_SECRET, REFRESH_SECRET, -1, 7, 1000, opaqueTokenStore,
+                new SimpleMeterRegistry());
+        String token = expiring.generateAccessToken(user, "session-1");
+
+        assertTrue(tokenProvider.verifyAccessToken(token).isEmpty());
+    }
+
+    @Test
+    void sessionIdSurvivesExpiryButNotTampering() {
+        JwtTokenProvider expiring = new JwtTokenProvider(ACCESS_SECRET, REFRESH_SECRET, -1, 7, 1000, opaqueTokenStore,
+                new SimpleMeterRegistry());
+        String token = expiring.generateAccessToken(user, "session-1");
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertEquals("session-1", tokenProvider.getSessionIdIgnoringExpiry(token).orElseThrow());
+        assertTrue(tokenProvider.getSessionIdIgnoringExpiry(tampered).isEmpty());
+    }
+
+    @Test
+    void opaqueTokenResolvesToSameClaimsUntilRevoked() {
+        String token = tokenProvider.generateAccessToken(user, "session-1", AccessTokenFormat.OPAQUE);
+
+        assertTrue(token.length() < 40, token);
+        VerifiedAccessToken verified = tokenProvider.verifyAccessToken(token).orElseThrow();
+        assertEquals("jdoe", verified.getUsername());
+        assertEquals("session-1", verified.getSessionId());
+        assertEquals(7L, verified.getUserId());
+        assertEquals("ADMIN", verified.getRole());
+        assertNotNull(verified.getTokenId());
+
+        tokenProvider.revokeStoredAccessToken(token);
+
+        assertTrue(tokenProvider.verifyAccessToken(token).isEmpty());
+        assertTrue(tokenProvider.verifyAccessToken(token + "x").isEmpty());
+    }
+
+    @Test
+    void opaqueTokenResolvesFromTableAfterRestart() {
+        String token = tokenProvider.generateAccessToken(user, "session-1", AccessTokenFormat.OPAQUE);
+        ArgumentCaptor<OpaqueAccessToken> stored = ArgumentCaptor.forClass(OpaqueAccessToken.class);
+        verify(opaqueTokenRepository).insert(stored.capture());
+        when(opaqueTokenRepository.findByTokenHash(any())).thenReturn(Optional.of(stored.getValue()));
+
+        JwtTokenProvider restarted = new JwtTokenProvider(ACCESS_SECRET, REFRESH_SECRET, 15, 7, 1000,
+                new ShardedOpaqueTokenStore(opaqueTokenRepository, null, 4, 30, 1000), new SimpleMeterRegistry());
+
+        VerifiedAccessToken verified = restarted.verifyAccessToken(token).orElseThrow();
+        assertEquals("session-1", verified.getSessionId());
+        assertEquals(tokenProvider.verifyAccessToken(token).orElseThrow().getTokenId(), verified.getTokenId());
+    }
+
+    @Test
+    void unknownOpaqueTokenIsLookedUpOnceWhileRemembered() {
+        String unknown = OpaqueTokenStore.TOKEN_PREFIX + "not-issued-anywhere";
+        when(opaqueTokenRepository.findByTokenHash(any())).thenReturn(Optional.empty());
+
+        assertTrue(tokenProvider.verifyAccessToken(unknown).isEmpty());
+        assertTrue(tokenProvider.verifyAccessToken(unknown).isEmpty());
+        assertTrue(tokenProvider.getSessionIdIgnoringExpiry(unknown).isEmpty());
+
+        verify(opaqueTokenRepository, times(1)).findByTokenHash(any());
+    }
+
+    @Test
+    void verifyAccessTokenRejectsRefreshToken() {
+        String refreshToken = tokenProvider.generateRefreshToken(user);
+
+        assertTrue(tokenProvider.verifyAccessToken(refreshToken).isEmpty());
+    }
+
+    @Test
+    void repeatVerificationIsServedFromCache() {
+        String token = tokenProvider.generateAccessToken(user, "session-1");
+
+        tokenProvider.verifyAccessToken(token);
+        tokenProvider.verifyAccessToken(token);
+        tokenProvider.verifyAccessToken(token);
+
+        assertEquals(1, cacheGets("miss"));
+        assertEquals(2, cacheGets("hit"));
+    }
+
+    @Test
+    void tamperedTokenIsRejectedEvenWhenOriginalIsCached() {
+        String token = tokenProvider.generateAccessToken(user, "session-1");
+        assertTrue(tokenProvider.verifyAccessToken(token).isPresent());
+
+        String tampered = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertTrue(tokenProvider.verifyAccessToken(tampered).isEmpty());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tags("cache", "verified-access-tokens", "result", result)
+                .functionCounter().count();
+    }
+}
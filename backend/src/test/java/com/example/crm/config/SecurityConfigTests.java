@@ -0,0 +1,32 @@
+package com.example.crm.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The health check stays public while the metrics it sits next to need a login.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class SecurityConfigTests {
+    @Autowired private MockMvc mockMvc;
+
+    @Test
+    void onlyHealthIsServedWithoutAuthentication() throws Exception {
+        assertEquals(200, status("/actuator/health"));
+        for (String path : new String[] {"/actuator/metrics", "/actuator/metrics/jvm.memory.used"}) {
+            int status = status(path);
+            assertTrue(status == 401 || status == 403, path + " answered " + status);
+        }
+    }
+
+    private int status(String path) throws Exception {
+        return mockMvc.perform(get(path)).andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.crm.service;
+
+import com.example.crm.model.Activity;
+import com.example.crm.model.Company;
+import com.example.crm.model.Contact;
+import com.example.crm.model.Opportunity;
+import com.example.crm.repository.ActivityRepository;
+import com.example.crm.repository.CompanyRepository;
+import com.example.crm.repository.ContactRepository;
+import com.example.crm.repository.OpportunityRepository;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.context.annotation.Scope;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Saves companies, contacts and their records for one test, each named after a tag unique
+ * to the run, and deletes them again children first. Tests {@code @Import} it and build
+ * the shape they need; each test instance gets its own fixture.
+ */
+@TestComponent
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
+class AccountFixture {
+    private final CompanyRepository companyRepo;
+    private final ContactRepository contactRepo;
+    private final OpportunityRepository oppRepo;
+    private final ActivityRepository activityRepo;
+
+    private final String run = UUID.randomUUID().toString();
+    private final List<Company> companies = new ArrayList<>();
+    private final List<Contact> contacts = new ArrayList<>();
+    private final List<Opportunity> opportunities = new ArrayList<>();
+    private final List<Activity> activities = new ArrayList<>();
+
+    AccountFixture(CompanyRepository companyRepo, ContactRepository contactRepo,
+                   OpportunityRepository oppRepo, ActivityRepository activityRepo) {
+        this.companyRepo = companyRepo;
+        this.contactRepo = contactRepo;
+        this.oppRepo = oppRepo;
+        this.activityRepo = activityRepo;
+    }
+
+    Company company() {
+        Company company = new Company();
+        company.setName("Account " + run + " " + companies.size());
+        companies.add(companyRepo.save(company));
+        return company;
+    }
+
+    // The company may be null, for a contact of no account
+    Contact contact(Company company) {
+        int i = contacts.size();
+        Contact contact = new Contact();
+        contact.setCompany(company);
+        contact.setFirstName("Account");
+        contact.setLastName("Contact " + i);
+        contact.setEmail("account-" + i + "-" + run + "@example.com");
+        contacts.add(contactRepo.save(contact));
+        return contact;
+    }
+
+    Opportunity opportunity(Contact contact) {
+        Opportunity opp = new Opportunity();
+        opp.setContact(contact);
+        opp.setTitle("Opportunity " + run + " " + opportunities.size());
+        opp.setAmount(BigDecimal.ONE);
+        opportunities.add(oppRepo.save(opp));
+        return opp;
+    }
+
+    Activity activity(Contact contact) {
+        return activity(contact, null);
+    }
+
+    Activity activity(Contact contact, OffsetDateTime dueDate) {
+        Activity activity = new Activity();
+        activity.setContact(contact);
+        activity.setSubject("Activity " + run + " " + activities.size());
+        activity.setDueDate(dueDate);
+        activities.add(activityRepo.save(activity));
+        return activity;
+    }
+
+    // Everything saved so far, oldest first
+    List<Company> companies() {
+        return companies;
+    }
+
+    List<Contact> contacts() {
+        return contacts;
+    }
+
+    List<Opportunity> opportunities() {
+        return opportunities;
+    }
+
+    List<Activity> activities() {
+        return activities;
+    }
+
+    void deleteAll() {
+        activityRepo.deleteAll(activities);
+        oppRepo.deleteAll(opportunities);
+        contactRepo.deleteAll(contacts);
+        companyRepo.deleteAll(companies);
+    }
+}
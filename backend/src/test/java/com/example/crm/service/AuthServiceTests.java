@@ -0,0 +1,78 @@
+package com.example.crm.service;
+
+import com.example.crm.config.CrmUserDetails;
+import com.example.crm.config.JwtTokenProvider;
+import com.example.crm.config.PasswordHashingRejectedException;
+import com.example.crm.dto.AuthRequest;
+import com.example.crm.dto.AuthResponse;
+import com.example.crm.model.RefreshToken;
+import com.example.crm.model.User;
+import com.example.crm.model.UserSession;
+import com.example.crm.model.enums.AccessTokenFormat;
+import com.example.crm.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * A saturated hashing pool surfaces from login as a rejection, never as bad credentials,
+ * and does not fail a login that already authenticated.
+ */
+class AuthServiceTests {
+    private final AuthenticationManager authenticationManager = mock(AuthenticationManager.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+    private final SessionService sessionService = mock(SessionService.class);
+    private final RefreshTokenService refreshTokenService = mock(RefreshTokenService.class);
+    private final AuthService authService = new AuthService(authenticationManager, userRepository, passwordEncoder,
+            mock(JwtTokenProvider.class), refreshTokenService, sessionService, mock(UserStatusCache.class),
+            mock(LastLoginRecorder.class), mock(RevocationRegistry.class), AccessTokenFormat.JWT);
+
+    @Test
+    void rejectionWhileHashingForAnUnknownUserIsNotBadCredentials() {
+        PasswordHashingRejectedException rejected = new PasswordHashingRejectedException("saturated", 2);
+        // DaoAuthenticationProvider wraps whatever retrieveUser's dummy match throws
+        when(authenticationManager.authenticate(any()))
+                .thenThrow(new InternalAuthenticationServiceException(rejected.getMessage(), rejected));
+
+        assertSame(rejected, assertThrows(PasswordHashingRejectedException.class,
+                () -> authService.login(request(), new MockHttpServletRequest())));
+    }
+
+    @Test
+    void rejectedReHashStillLogsIn() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("someone");
+        user.setPasswordHash("$2a$04$outdated");
+        when(authenticationManager.authenticate(any()))
+                .thenReturn(new UsernamePasswordAuthenticationToken(new CrmUserDetails(user), null));
+        when(passwordEncoder.upgradeEncoding(user.getPasswordHash())).thenReturn(true);
+        when(passwordEncoder.encode(any())).thenThrow(new PasswordHashingRejectedException("saturated", 2));
+        when(sessionService.createSession(eq(user), any()))
+                .thenReturn(UserSession.builder().sessionId("session").build());
+        when(refreshTokenService.createRefreshToken(eq(user), eq("session"), any()))
+                .thenReturn(RefreshToken.builder().token("refresh").build());
+
+        AuthResponse response = authService.login(request(), new MockHttpServletRequest());
+
+        assertEquals("session", response.getSessionId());
+        assertEquals("$2a$04$outdated", user.getPasswordHash());
+        verify(userRepository, never()).save(any());
+    }
+
+    private static AuthRequest request() {
+        AuthRequest request = new AuthRequest();
+        request.setUsername("nobody");
+        request.setPassword("secret");
+        return request;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.crm.service;
+
+import com.example.crm.model.enums.DataFormat;
+import com.example.crm.model.enums.OpportunityStage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The generated COPY statements, and exports run against the real tables: filters select
+ * the right rows and NDJSON lines come out exactly as row_to_json wrote them.
+ */
+@SpringBootTest
+class BulkExportServiceTests {
+    private static final OffsetDateTime FROM = OffsetDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime TO = OffsetDateTime.of(2026, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Autowired private BulkExportService exportService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private ObjectMapper objectMapper;
+
+    private final String run = UUID.randomUUID().toString().substring(0, 8);
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM opportunities WHERE title LIKE ?", "%" + run + "%");
+        jdbcTemplate.update("DELETE FROM contacts WHERE email LIKE ?", "%" + run + "%");
+        jdbcTemplate.update("DELETE FROM companies WHERE name LIKE ?", "%" + run + "%");
+    }
+
+    @Test
+    void filtersAreRenderedIntoTheQuery() {
+        String sql = exportService.copySql(BulkExportService.Dataset.OPPORTUNITIES, DataFormat.CSV,
+                new BulkExportService.Filter(FROM, TO, OpportunityStage.WON, 42L));
+
+        assertTrue(sql.contains("t.created_at >= '2026-01-01T00:00Z'::timestamptz"), sql);
+        assertTrue(sql.contains("t.created_at < '2026-02-01T00:00Z'::timestamptz"), sql);
+        assertTrue(sql.contains("t.stage = 'WON'"), sql);
+        assertTrue(sql.contains("c.company_id = 42"), sql);
+        assertTrue(sql.endsWith("TO STDOUT (FORMAT csv, HEADER)"), sql);
+
+        String unfiltered = exportService.copySql(BulkExportService.Dataset.OPPORTUNITIES, DataFormat.CSV,
+                new BulkExportService.Filter(null, null, null, null));
+        assertFalse(unfiltered.contains("WHERE"), unfiltered);
+    }
+
+    @Test
+    void companyJoinIsAddedOnlyWhenFilteringByCompany() {
+        BulkExportService.Filter byCompany = new BulkExportService.Filter(null, null, null, 7L);
+        BulkExportService.Filter none = new BulkExportService.Filter(FROM, null, null, null);
+
+        assertTrue(exportService.copySql(BulkExportService.Dataset.ACTIVITIES, DataFormat.CSV, byCompany)
+                .contains("JOIN contacts c ON c.id = t.contact_id"));
+        assertFalse(exportService.copySql(BulkExportService.Dataset.ACTIVITIES, DataFormat.CSV, none).contains("JOIN"));
+        // Contacts and companies carry the company themselves
+        assertFalse(exportService.copySql(BulkExportService.Dataset.CONTACTS, DataFormat.CSV, byCompany).contains("JOIN"));
+        assertTrue(exportService.copySql(BulkExportService.Dataset.COMPANIES, DataFormat.CSV, byCompany)
+                .contains("t.id = 7"));
+    }
+
+    @Test
+    void stageIsRejectedOutsideOpportunities() {
+        BulkExportService.Filter won = new BulkExportService.Filter(null, null, OpportunityStage.WON, null);
+
+        for (BulkExportService.Dataset dataset : List.of(BulkExportService.Dataset.COMPANIES,
+                BulkExportService.Dataset.CONTACTS, BulkExportService.Dataset.ACTIVITIES)) {
+            ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                    () -> exportService.copySql(dataset, DataFormat.NDJSON, won));
+            assertEquals(400, e.getStatusCode().value());
+        }
+    }
+
+    @Test
+    void ndjsonRoundTripsQuotesAndNewlines() throws IOException {
+        String name = "Quote \"" + run + "\", comma\nnew line\\ and é";
+        long company = jdbcTemplate.queryForObject("INSERT INTO companies (name, created_at, updated_at) "
+                + "VALUES (?, now(), now()) RETURNING id", Long.class, name);
+
+        List<String> lines = export(BulkExportService.Dataset.COMPANIES, false, new BulkExportService.Filter(null, null, null, company))
+                .lines().toList();
+
+        assertEquals(1, lines.size());
+        JsonNode row = objectMapper.readTree(lines.get(0));
+        assertEquals(company, row.get("id").asLong());
+        assertEquals(name, row.get("name").asText());
+        assertTrue(row.has("postalCode"));
+    }
+
+    @Test
+    void filteredGzippedExportSelectsTheMatchingRows() throws IOException {
+        long company = jdbcTemplate.queryForObject("INSERT INTO companies (name, created_at, updated_at) "
+                + "VALUES (?, now(), now()) RETURNING id", Long.class, "Export " + run);
+        long contact = jdbcTemplate.queryForObject("INSERT INTO contacts (company_id, first_name, last_name, email, "
+                + "created_at, updated_at) VALUES (?, 'Ann', 'Smith', ?, now(), now()) RETURNING id",
+                Long.class, company, "export-" + run + "@example.com");
+        for (String stage : List.of("WON", "LOST")) {
+            jdbcTemplate.update("INSERT INTO opportunities (contact_id, title, amount, stage, created_at, updated_at) "
+                    + "VALUES (?, ?, 100, ?, now(), now())", contact, stage + " " + run, stage);
+        }
+
+        String csv = export(BulkExportService.Dataset.OPPORTUNITIES, true, new BulkExportService.Filter(
+                OffsetDateTime.now().minusHours(1), null, OpportunityStage.WON, company));
+
+        List<String> lines = csv.lines().toList();
+        assertEquals(2, lines.size(), csv);
+        assertTrue(lines.get(0).startsWith("id,contactId,title"));
+        assertTrue(lines.get(1).contains("WON " + run));
+    }
+
+    // NDJSON unless gzip, which is checked with CSV
+    private String export(BulkExportService.Dataset dataset, boolean gzip, BulkExportService.Filter filter)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.export(dataset, gzip ? DataFormat.CSV : DataFormat.NDJSON, gzip, filter).writeTo(out);
+        byte[] bytes = out.toByteArray();
+        if (gzip) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = in.readAllBytes();
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.crm.service;
+
+import com.example.crm.dto.ImportReport;
+import com.example.crm.model.enums.DataFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Imports against the real tables: upserts on email and on the lowercased company name,
+ * the last row for a key wins, blank fields keep what is stored, and bad rows are
+ * counted without failing the import.
+ */
+@SpringBootTest
+class BulkImportServiceTests {
+    @Autowired private BulkImportService importService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private final String run = UUID.randomUUID().toString().substring(0, 8);
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM contacts WHERE email LIKE ?", "%" + run + "%");
+        jdbcTemplate.update("DELETE FROM companies WHERE name LIKE ?", "%" + run + "%");
+    }
+
+    @Test
+    void csvCompaniesAreMatchedByNameWithoutCase() {
+        long acme = insertCompany("Acme " + run, "Old", "Athens");
+
+        ImportReport report = importCompanies(DataFormat.CSV, """
+                Name,Industry,City
+                ACME %1$s,Tools,
+                acme %1$s,Software,
+                New %1$s,Retail,Patras
+                ,Nameless,
+                """.formatted(run));
+
+        assertEquals(4, report.getRows());
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(1, report.getRejected());
+        assertEquals(4, report.getErrors().get(0).getRow());
+
+        Map<String, Object> stored = jdbcTemplate.queryForMap("SELECT name, industry, city FROM companies WHERE id = ?", acme);
+        assertEquals("Acme " + run, stored.get("name"));
+        assertEquals("Software", stored.get("industry"));
+        assertEquals("Athens", stored.get("city"));
+        assertEquals(List.of("Acme " + run, "New " + run), jdbcTemplate.queryForList(
+                "SELECT name FROM companies WHERE name LIKE ? ORDER BY name", String.class, "%" + run));
+    }
+
+    @Test
+    void ndjsonContactsAreUpsertedOnEmail() {
+        long acme = insertCompany("Acme " + run, null, null);
+        jdbcTemplate.update("INSERT INTO contacts (first_name, last_name, email, phone, created_at, updated_at) "
+                + "VALUES ('Old', 'Name', ?, '555-0100', now(), now())", "ann-" + run + "@example.com");
+
+        ImportReport report = importContacts(DataFormat.NDJSON, """
+                {"firstName": "Anna", "lastName": "Smith", "email": "ann-%1$s@example.com", "phone": "555-0199"}
+                {"first_name": "Ann", "last_name": "Smith", "email": "ann-%1$s@example.com", "phone": " "}
+                not json
+                {"firstName": "Bad", "lastName": "Email", "email": "bad-%1$s"}
+
+                {"firstName": "Bob", "lastName": "Jones", "email": "bob-%1$s@example.com", "companyName": "ACME %1$s"}
+                {"firstName": "Carl", "lastName": "Nobody", "email": "carl-%1$s@example.com", "companyName": "None %1$s"}
+                """.formatted(run));
+
+        assertEquals(6, report.getRows());
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getUpdated());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(3, report.getRejected());
+        assertEquals(List.of(3L, 4L, 6L), report.getErrors().stream().map(ImportReport.RowError::getRow).toList());
+
+        Map<String, Object> ann = jdbcTemplate.queryForMap("SELECT first_name, phone FROM contacts WHERE email = ?",
+                "ann-" + run + "@example.com");
+        assertEquals("Ann", ann.get("first_name"));
+        assertEquals("555-0100", ann.get("phone"));
+        assertEquals(acme, jdbcTemplate.queryForObject("SELECT company_id FROM contacts WHERE email = ?", Long.class,
+                "bob-" + run + "@example.com"));
+    }
+
+    @Test
+    void malformedCsvRecordIsRejectedNotTheWholeImport() {
+        ImportReport report = importCompanies(DataFormat.CSV, """
+                name,industry
+                First %1$s,Retail
+                Second %1$s,"Unterminated
+                """.formatted(run));
+
+        assertEquals(2, report.getRows());
+        assertEquals(1, report.getInserted());
+        assertEquals(1, report.getRejected());
+        assertTrue(report.getErrors().get(0).getMessage().startsWith("malformed CSV record"));
+    }
+
+    @Test
+    void reimportingTheSameRowsChangesNothing() {
+        String csv = """
+                name,industry
+                Same %s,Retail
+                """.formatted(run);
+        importCompanies(DataFormat.CSV, csv);
+
+        ImportReport report = importCompanies(DataFormat.CSV, csv);
+
+        assertEquals(0, report.getInserted());
+        assertEquals(0, report.getUpdated());
+        assertEquals(1, report.getUnchanged());
+    }
+
+    private ImportReport importCompanies(DataFormat format, String body) {
+        return importService.importCompanies(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private ImportReport importContacts(DataFormat format, String body) {
+        return importService.importContacts(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+
+    private long insertCompany(String name, String industry, String city) {
+        return jdbcTemplate.queryForObject("INSERT INTO companies (name, industry, city, created_at, updated_at) "
+                + "VALUES (?, ?, ?, now(), now()) RETURNING id", Long.class, name, industry, city);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.crm.service;
+
+import com.example.crm.config.GlobalExceptionHandler;
+import com.example.crm.dto.CursorPage;
+import com.example.crm.dto.ErrorResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPagingTests {
+    private final CursorPaging paging = new CursorPaging(50, 200);
+
+    @Test
+    void cursorRoundTripsAtMicrosecondPrecision() {
+        PageCursor cursor = new PageCursor(OffsetDateTime.of(2026, 3, 14, 15, 9, 26, 535_897_000, ZoneOffset.UTC), 42);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+        assertEquals(cursor, paging.cursor(cursor.encode(), true));
+    }
+
+    @Test
+    void missingCursorStartsAtTheRightEnd() {
+        assertEquals(PageCursor.start(true), paging.cursor(null, true));
+        assertEquals(PageCursor.start(false), paging.cursor(" ", false));
+    }
+
+    @Test
+    void garbledOrPaddedCursorIsRejectedWith400() {
+        String valid = new PageCursor(OffsetDateTime.now(ZoneOffset.UTC), 7).encode();
+        byte[] bytes = Base64.getUrlDecoder().decode(valid);
+        String trailing = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                ByteBuffer.allocate(bytes.length + 1).put(bytes).put((byte) 0).array());
+
+        for (String token : List.of("not a cursor!", valid.substring(0, 10), trailing)) {
+            InvalidCursorException e = assertThrows(InvalidCursorException.class, () -> paging.cursor(token, true));
+            ResponseEntity<ErrorResponse> response = new GlobalExceptionHandler()
+                    .handleInvalidCursor(e, new MockHttpServletRequest("GET", "/api/contacts"));
+            assertEquals(400, response.getStatusCode().value(), token);
+        }
+    }
+
+    @Test
+    void limitIsDefaultedAndClamped() {
+        assertEquals(50, paging.limit(null));
+        assertEquals(1, paging.limit(0));
+        assertEquals(1, paging.limit(-5));
+        assertEquals(20, paging.limit(20));
+        assertEquals(200, paging.limit(10_000));
+    }
+
+    @Test
+    void nextCursorPointsAtTheLastRowAndIsNullOnTheLastPage() {
+        OffsetDateTime t = OffsetDateTime.now(ZoneOffset.UTC);
+        List<Long> ids = List.of(5L, 4L, 3L);
+
+        CursorPage<Long> full = paging.page(ids, 2, id -> new PageCursor(t, id));
+        assertEquals(List.of(5L, 4L), full.getItems());
+        assertEquals(new PageCursor(t, 4L).encode(), full.getNextCursor());
+
+        CursorPage<Long> last = paging.page(ids, 3, id -> new PageCursor(t, id));
+        assertEquals(ids, last.getItems());
+        assertNull(last.getNextCursor());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.crm.service;
+
+import com.example.crm.model.Company;
+import com.example.crm.model.Contact;
+import com.example.crm.model.Opportunity;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * With more parents than a batch holds and more children than a list may return, each
+ * relation is loaded in several capped batches and every parent gets only its first rows.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "graphql.limits.max-batch-size=2",
+        "graphql.related.default-size=2",
+        "graphql.related.max-size=3"
+})
+@Import(AccountFixture.class)
+class GraphQueryLimitsTests {
+    private static final int COMPANIES = 3;
+    private static final int CONTACTS = 4;
+    private static final int OPPORTUNITIES = 3;
+
+    @Autowired private AccountFixture accounts;
+    @Autowired private ExecutionGraphQlService graphQlService;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private List<Company> companies;
+    private List<Contact> contacts;
+    private List<Opportunity> opportunities;
+    private GraphQlTester graphQl;
+    private Statistics statistics;
+
+    @BeforeEach
+    void createAccounts() {
+        graphQl = ExecutionGraphQlServiceTester.create(graphQlService);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (int i = 0; i < COMPANIES; i++) {
+            Company company = accounts.company();
+            for (int j = 0; j < CONTACTS; j++) {
+                Contact contact = accounts.contact(company);
+                for (int k = 0; k < OPPORTUNITIES; k++) {
+                    accounts.opportunity(contact);
+                }
+            }
+        }
+        companies = accounts.companies();
+        contacts = accounts.contacts();
+        opportunities = accounts.opportunities();
+    }
+
+    @AfterEach
+    void deleteAccounts() {
+        accounts.deleteAll();
+    }
+
+    @Test
+    void relationsAreLoadedInCappedBatchesAndLists() {
+        String query = """
+                { companies(first: %d) { items { name contacts(first: 10) { email opportunities { title } } } } }
+                """.formatted(COMPANIES);
+
+        statistics.clear();
+        GraphQlTester.Response response = graphQl.document(query).execute();
+        // companies; contacts of 3 companies in batches of 2; opportunities of 9 contacts in batches of 2
+        assertEquals(1 + 2 + 5, statistics.getPrepareStatementCount());
+
+        // first: 10 is clamped to max-size, oldest first
+        response.path("companies.items[0].contacts[*].email").entityList(String.class)
+                .containsExactly(contacts.get(8).getEmail(), contacts.get(9).getEmail(), contacts.get(10).getEmail());
+        for (int i = 0; i < COMPANIES; i++) {
+            response.path("companies.items[%d].contacts".formatted(i)).entityList(Object.class).hasSize(3);
+            for (int j = 0; j < 3; j++) {
+                response.path("companies.items[%d].contacts[%d].opportunities".formatted(i, j))
+                        .entityList(Object.class).hasSize(2);
+            }
+        }
+        // default-size, newest first
+        response.path("companies.items[2].contacts[0].opportunities[*].title").entityList(String.class)
+                .containsExactly(opportunities.get(2).getTitle(), opportunities.get(1).getTitle());
+    }
+
+    @Test
+    void firstPicksFewerRowsPerParent() {
+        String query = """
+                { company(id: %d) { contacts(first: 1) { email opportunities(first: 1) { title } } } }
+                """.formatted(companies.get(1).getId());
+
+        GraphQlTester.Response response = graphQl.document(query).execute();
+
+        response.path("company.contacts[*].email").entityList(String.class).containsExactly(contacts.get(4).getEmail());
+        response.path("company.contacts[0].opportunities[*].title").entityList(String.class)
+                .containsExactly(opportunities.get(14).getTitle());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.crm.service;
+
+import com.example.crm.model.Company;
+import com.example.crm.model.Contact;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.ExecutionGraphQlService;
+import org.springframework.graphql.test.tester.ExecutionGraphQlServiceTester;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A GraphQL request costs one statement per relation and level, however many rows each
+ * level holds, and requests over the depth or complexity limit are rejected unrun.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(AccountFixture.class)
+class GraphQueryTests {
+    private static final int COMPANIES = 3;
+
+    @Autowired private AccountFixture accounts;
+    @Autowired private ExecutionGraphQlService graphQlService;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private List<Company> companies;
+    private List<Contact> contacts;
+    private GraphQlTester graphQl;
+    private Statistics statistics;
+
+    @BeforeEach
+    void createAccounts() {
+        graphQl = ExecutionGraphQlServiceTester.create(graphQlService);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // Two contacts per company, each with two opportunities and two activities
+        for (int i = 0; i < COMPANIES; i++) {
+            Company company = accounts.company();
+            for (int j = 0; j < 2; j++) {
+                Contact contact = accounts.contact(company);
+                for (int k = 0; k < 2; k++) {
+                    accounts.opportunity(contact);
+                    accounts.activity(contact);
+                }
+            }
+        }
+        companies = accounts.companies();
+        contacts = accounts.contacts();
+    }
+
+    @AfterEach
+    void deleteAccounts() {
+        accounts.deleteAll();
+    }
+
+    @Test
+    void eachLevelIsOneStatement() {
+        String query = """
+                { companies(first: %d) { items { name contacts {
+                    email company { name }
+                    opportunities { title contact { email } }
+                    activities { subject } } } } }
+                """.formatted(COMPANIES);
+
+        statistics.clear();
+        GraphQlTester.Response response = graphQl.document(query).execute();
+        // companies, contacts, their companies, opportunities, their contacts, activities
+        assertEquals(6, statistics.getPrepareStatementCount());
+
+        response.path("companies.items[*].name").entityList(String.class)
+                .containsExactly(companies.get(2).getName(), companies.get(1).getName(), companies.get(0).getName());
+        response.path("companies.items[0].contacts[*].email").entityList(String.class)
+                .containsExactly(contacts.get(4).getEmail(), contacts.get(5).getEmail());
+        response.path("companies.items[0].contacts[0].company.name").entity(String.class)
+                .isEqualTo(companies.get(2).getName());
+        response.path("companies.items[0].contacts[0].opportunities[*].contact.email").entityList(String.class)
+                .containsExactly(contacts.get(4).getEmail(), contacts.get(4).getEmail());
+        response.path("companies.items[2].contacts[1].activities").entityList(Object.class).hasSize(2);
+    }
+
+    @Test
+    void requestsOverTheLimitsAreRejected() {
+        // Nine levels deep
+        String tooDeep = """
+                { activity(id: %d) { contact { company { contacts { opportunities {
+                    contact { company { contacts { id } } } } } } } } }
+                """.formatted(accounts.activities().get(0).getId());
+        // Four nested lists at their default sizes
+        String tooComplex = """
+                { companies { items { contacts { opportunities { contact {
+                    activities { subject description } } } } } } }
+                """;
+        // Only three levels, but up to 200 * 100 * 200 rows
+        String tooManyRows = """
+                { companies(first: 200) { items { contacts(first: 100) {
+                    opportunities(first: 100) { title } activities(first: 100) { subject } } } } }
+                """;
+
+        assertRejected(tooDeep, "maximum query depth exceeded");
+        assertRejected(tooComplex, "maximum query complexity exceeded");
+        assertRejected(tooManyRows, "maximum query complexity exceeded");
+        // The same shape asking for a few rows per level is fine
+        graphQl.document(tooManyRows.replaceAll("first: \\d+", "first: 5")).execute().errors().verify();
+    }
+
+    private void assertRejected(String query, String reason) {
+        statistics.clear();
+        graphQl.document(query).execute().errors().satisfy(errors -> assertTrue(
+                errors.stream().anyMatch(e -> e.getMessage().startsWith(reason))));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.crm.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Batched streaming writes one well-formed array, a failure halfway does not pass for
+ * a complete one, and the unpaged endpoints never reach their async dispatch without
+ * an authenticated request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class JsonArrayStreamerTests {
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private MockMvc mockMvc;
+
+    @Test
+    void moreRowsThanABatchStreamAsOneArray() throws Exception {
+        List<List<Integer>> batches = new ArrayList<>();
+        JsonArrayStreamer streamer = new JsonArrayStreamer(objectMapper, mock(PlatformTransactionManager.class), 3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        streamer.stream(() -> IntStream.range(0, 10).boxed(), (List<Integer> batch) -> {
+            batches.add(List.copyOf(batch));
+            return batch.stream().map(i -> Map.of("id", i)).toList();
+        }).writeTo(out);
+
+        JsonNode array = objectMapper.readTree(out.toByteArray());
+        assertTrue(array.isArray());
+        assertEquals(10, array.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, array.get(i).get("id").asInt());
+        }
+        assertEquals(List.of(3, 3, 3, 1), batches.stream().map(List::size).toList());
+    }
+
+    @Test
+    void failureHalfwayLeavesTheArrayUnterminated() {
+        JsonArrayStreamer streamer = new JsonArrayStreamer(objectMapper, mock(PlatformTransactionManager.class), 2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThrows(IllegalStateException.class, () -> streamer.stream(() -> Stream.of(1, 2, 3).peek(i -> {
+            if (i == 3) {
+                throw new IllegalStateException("connection lost");
+            }
+        })).writeTo(out));
+
+        assertTrue(out.toString().startsWith("[1,2"));
+        assertThrows(JsonProcessingException.class, () -> objectMapper.readTree(out.toByteArray()));
+    }
+
+    @Test
+    void unauthenticatedStreamIsRejectedBeforeAsyncStarts() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/companies").param("unpaged", "true")).andReturn();
+
+        assertTrue(result.getResponse().getStatus() == 401 || result.getResponse().getStatus() == 403);
+        assertFalse(result.getRequest().isAsyncStarted());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.crm.service;
+
+import com.example.crm.dto.ExpandedOpportunityDto;
+import com.example.crm.model.Contact;
+import com.example.crm.model.enums.Expansion;
+import com.example.crm.model.enums.OpportunityStage;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * List endpoints must not load associations row by row: each list is one SQL statement
+ * however many rows, and however many distinct contacts and companies, it returns, and
+ * each expanded relation adds one more.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(AccountFixture.class)
+class ListQueryStatementCountTests {
+    private static final int ROWS = 12;
+    private static final Set<Expansion> NONE = Set.of();
+
+    @Autowired private AccountFixture accounts;
+    @Autowired private ContactService contactService;
+    @Autowired private OpportunityService oppService;
+    @Autowired private ActivityService activityService;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void createRows() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        OffsetDateTime yesterday = OffsetDateTime.now().minusDays(1);
+        for (int i = 0; i < ROWS; i++) {
+            // A distinct contact and company per row, the worst case for per-row loading
+            Contact contact = accounts.contact(accounts.company());
+            accounts.opportunity(contact);
+            accounts.activity(contact, yesterday);
+        }
+    }
+
+    @AfterEach
+    void deleteRows() {
+        accounts.deleteAll();
+    }
+
+    @Test
+    void pagesAreOneStatementWhateverTheirSize() {
+        assertSingleStatement(() -> contactService.getPage(null, 3, NONE));
+        assertSingleStatement(() -> contactService.getPage(null, ROWS, NONE));
+        assertSingleStatement(() -> oppService.getPage(null, 3, NONE));
+        assertSingleStatement(() -> oppService.getPage(null, ROWS, NONE));
+        assertSingleStatement(() -> oppService.getPageByStage(OpportunityStage.NEW, null, ROWS, NONE));
+        assertSingleStatement(() -> activityService.getPage(null, 3, NONE));
+        assertSingleStatement(() -> activityService.getPage(null, ROWS, NONE));
+        assertSingleStatement(() -> activityService.getPendingPage(null, ROWS, NONE));
+    }
+
+    @Test
+    void streamedListsAreOneStatement() {
+        assertSingleStatement(() -> write(contactService.streamAll(NONE)));
+        assertSingleStatement(() -> write(oppService.streamAll(NONE)));
+        assertSingleStatement(() -> write(activityService.streamAll(NONE)));
+        assertSingleStatement(() -> write(activityService.streamPendingTasks(NONE)));
+    }
+
+    @Test
+    void expandingAddsOneStatementPerLevel() {
+        Set<Expansion> company = Set.of(Expansion.COMPANY);
+        Set<Expansion> contact = Set.of(Expansion.CONTACT);
+        Set<Expansion> contactCompany = Set.of(Expansion.CONTACT, Expansion.CONTACT_COMPANY);
+        assertStatements(2, () -> contactService.getPage(null, ROWS, company));
+        assertStatements(2, () -> oppService.getPage(null, ROWS, contact));
+        assertStatements(3, () -> oppService.getPage(null, ROWS, contactCompany));
+        assertStatements(3, () -> activityService.getPendingPage(null, ROWS, contactCompany));
+        assertStatements(2, () -> write(contactService.streamByCompany(accounts.companies().get(0).getId(), company)));
+        assertStatements(3, () -> write(activityService.streamPendingTasks(contactCompany)));
+
+        ExpandedOpportunityDto newest = oppService.getPage(null, 1, contactCompany).getItems().get(0);
+        assertEquals(accounts.contacts().get(ROWS - 1).getId(), newest.getContact().getContact().getId());
+        assertEquals(accounts.companies().get(ROWS - 1).getId(), newest.getContact().getCompany().getId());
+    }
+
+    private void assertSingleStatement(Runnable listing) {
+        assertStatements(1, listing);
+    }
+
+    private void assertStatements(int expected, Runnable listing) {
+        statistics.clear();
+        listing.run();
+        assertEquals(expected, statistics.getPrepareStatementCount());
+    }
+
+    private static void write(StreamingResponseBody body) {
+        try {
+            body.writeTo(new ByteArrayOutputStream());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
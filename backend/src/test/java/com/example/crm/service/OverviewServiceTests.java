@@ -0,0 +1,88 @@
+package com.example.crm.service;
+
+import com.example.crm.dto.CompanyOverviewDto;
+import com.example.crm.dto.ContactOverviewDto;
+import com.example.crm.dto.OpportunityOverviewDto;
+import com.example.crm.model.Company;
+import com.example.crm.model.Contact;
+import com.example.crm.model.Opportunity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Overviews hold exactly one account's rows, whatever else is in the database.
+ */
+@SpringBootTest
+@Import(AccountFixture.class)
+class OverviewServiceTests {
+    @Autowired private AccountFixture accounts;
+    @Autowired private OverviewService overviewService;
+
+    private List<Company> companies;
+    private List<Contact> contacts;
+    private List<Opportunity> opportunities;
+
+    @BeforeEach
+    void createAccounts() {
+        // Two companies with two contacts each, and a contact without a company
+        Company first = accounts.company();
+        Company second = accounts.company();
+        for (int i = 0; i < 5; i++) {
+            Contact contact = accounts.contact(i < 4 ? (i % 2 == 0 ? first : second) : null);
+            accounts.opportunity(contact);
+            accounts.activity(contact);
+            accounts.activity(contact);
+        }
+        companies = accounts.companies();
+        contacts = accounts.contacts();
+        opportunities = accounts.opportunities();
+    }
+
+    @AfterEach
+    void deleteAccounts() {
+        accounts.deleteAll();
+    }
+
+    @Test
+    void companyOverviewHoldsOnlyItsContactsAndTheirRecords() {
+        CompanyOverviewDto overview = overviewService.getCompanyOverview(companies.get(0).getId());
+
+        assertEquals(companies.get(0).getId(), overview.getCompany().getId());
+        assertEquals(List.of(contacts.get(0).getId(), contacts.get(2).getId()),
+                overview.getContacts().stream().map(c -> c.getId()).toList());
+        assertEquals(2, overview.getOpportunities().size());
+        assertEquals(4, overview.getActivities().size());
+    }
+
+    @Test
+    void contactAndOpportunityOverviewsFollowTheContact() {
+        ContactOverviewDto contact = overviewService.getContactOverview(contacts.get(1).getId());
+        assertEquals(companies.get(1).getId(), contact.getCompany().getId());
+        assertEquals(1, contact.getOpportunities().size());
+        assertEquals(2, contact.getActivities().size());
+
+        OpportunityOverviewDto opportunity = overviewService.getOpportunityOverview(opportunities.get(4).getId());
+        assertEquals(contacts.get(4).getId(), opportunity.getContact().getId());
+        assertNull(opportunity.getCompany());
+        assertEquals(2, opportunity.getActivities().size());
+    }
+
+    @Test
+    void missingRecordsAreNotFound() {
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> overviewService.getCompanyOverview(-1L));
+        assertEquals(HttpStatus.NOT_FOUND, e.getStatusCode());
+    }
+}
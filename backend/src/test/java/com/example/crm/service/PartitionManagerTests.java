@@ -0,0 +1,224 @@
+package com.example.crm.service;
+
+import com.example.crm.model.User;
+import com.example.crm.model.UserSession;
+import com.example.crm.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Daily partitions by creation day: rows stay put when their expiry moves, partitions
+ * are dropped once their latest expiry has passed, and uniqueness still holds across
+ * partitions. The SQL functions are exercised on a scratch table.
+ */
+@SpringBootTest
+class PartitionManagerTests {
+    @Autowired private PartitionManager partitionManager;
+    @Autowired private SessionService sessionService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private String scratch;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        user = new User();
+        user.setUsername("partition-" + run);
+        user.setEmail("partition-" + run + "@example.com");
+        user.setPasswordHash("unused");
+        user = userRepository.save(user);
+        scratch = "partition_test_" + run.substring(0, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + scratch + " CASCADE");
+        jdbcTemplate.update("DELETE FROM user_sessions WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void extendingASessionDoesNotMoveItsRow() {
+        UserSession session = sessionService.createSession(user, new MockHttpServletRequest());
+        String before = partitionOf(session.getSessionId());
+
+        // Across several day boundaries; used to be a cross-partition row move
+        jdbcTemplate.update("UPDATE user_sessions SET expired_at = expired_at + interval '3 days' "
+                + "WHERE session_id = ?", session.getSessionId());
+
+        assertEquals(before, partitionOf(session.getSessionId()));
+        assertEquals("user_sessions_p" + day(0), before);
+    }
+
+    @Test
+    void sessionIdsAndTokenHashesStayUnique() {
+        String sessionId = sessionService.createSession(user, new MockHttpServletRequest()).getSessionId();
+
+        // A different creation day lands in a different partition, and is still rejected
+        assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(
+                "INSERT INTO user_sessions (user_id, session_id, ip_address, created_at, last_accessed_at, "
+                        + "expired_at, is_active) VALUES (?, ?, '127.0.0.1', now() - interval '1 day', now(), "
+                        + "now() + interval '1 hour', true)", user.getId(), sessionId));
+
+        jdbcTemplate.update("INSERT INTO refresh_tokens (user_id, token_hash, expiry_date, created_at, is_revoked) "
+                + "VALUES (?, '\\x01'::bytea, now() + interval '1 day', now(), false)", user.getId());
+        try {
+            assertThrows(DuplicateKeyException.class, () -> jdbcTemplate.update(
+                    "INSERT INTO refresh_tokens (user_id, token_hash, expiry_date, created_at, is_revoked) "
+                            + "VALUES (?, '\\x01'::bytea, now() + interval '1 day', now() - interval '1 day', false)",
+                    user.getId()));
+        } finally {
+            jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id = ?", user.getId());
+        }
+    }
+
+    @Test
+    void ensurePartitionsIsIdempotent() {
+        partitionManager.ensurePartitions(PartitionManager.USER_SESSIONS);
+
+        assertEquals(0, partitionManager.ensurePartitions(PartitionManager.USER_SESSIONS));
+        assertNotNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class,
+                "user_sessions_p" + day(1)));
+    }
+
+    @Test
+    void concurrentConversionsPartitionTheTableOnce() throws Exception {
+        createScratchTable();
+        insertScratch(-3, -2);  // expired: not carried over
+        insertScratch(-2, 1);   // live
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> conversions = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                conversions.add(executor.submit(() -> {
+                    start.await();
+                    jdbcTemplate.queryForList("SELECT crm_partition_by_day(?, 'created_at', 'expires_at')", scratch);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : conversions) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals("created_at", partitionKey());
+        assertEquals(List.of(scratch + "_p" + day(-2)), rowPartitions());
+    }
+
+    @Test
+    void tablePartitionedByExpiryIsRepartitionedByCreationDay() {
+        createScratchTable();
+        insertScratch(-2, 1);
+        jdbcTemplate.queryForList("SELECT crm_partition_by_day(?, 'expires_at', 'expires_at')", scratch);
+        assertEquals(List.of(scratch + "_p" + day(1)), rowPartitions());
+
+        jdbcTemplate.queryForList("SELECT crm_partition_by_day(?, 'created_at', 'expires_at')", scratch);
+
+        assertEquals("created_at", partitionKey());
+        assertEquals(List.of(scratch + "_p" + day(-2)), rowPartitions());
+        assertNull(jdbcTemplate.queryForObject("SELECT to_regclass(?)::text", String.class, scratch + "_legacy"));
+        // the id sequence survived the old table
+        insertScratch(0, 1);
+    }
+
+    @Test
+    void partitionsAreDroppedOnceTheirLatestExpiryHasPassed() {
+        createScratchTable();
+        jdbcTemplate.queryForList("SELECT crm_partition_by_day(?, 'created_at', 'expires_at')", scratch);
+        insertScratch(-4, -3);
+        assertEquals(List.of(scratch + "_default"), rowPartitions());
+
+        // Rows of that day already in the default partition move into the new one
+        assertTrue(ensureScratchPartition(-4));
+        assertEquals(List.of(scratch + "_p" + day(-4)), rowPartitions());
+
+        ensureScratchPartition(-5);  // empty
+        ensureScratchPartition(-3);
+        insertScratch(-3, -3);
+        insertScratch(-3, 1);   // one live row keeps its partition
+        ensureScratchPartition(0);  // still taking inserts
+
+        Integer dropped = jdbcTemplate.queryForObject(
+                "SELECT crm_drop_expired_partitions(?, 'expires_at', now() - interval '1 day')", Integer.class, scratch);
+
+        assertEquals(2, dropped);
+        assertEquals(List.of(scratch + "_p" + day(-3)), rowPartitions());
+        assertEquals(List.of(scratch + "_default", scratch + "_p" + day(-3), scratch + "_p" + day(0)),
+                jdbcTemplate.queryForList("SELECT inhrelid::regclass::text FROM pg_inherits WHERE inhparent = ?::regclass "
+                        + "ORDER BY 1", String.class, scratch));
+    }
+
+    @Test
+    void everyPartitionIndexesItsExpiry() {
+        // The drop check reads max(expiry) per partition, which must not scan the rows
+        partitionManager.ensurePartitions(PartitionManager.USER_SESSIONS);
+
+        for (String partition : List.of("user_sessions_p" + day(0), "user_sessions_p" + day(1),
+                "refresh_tokens_p" + day(0))) {
+            List<String> indexes = jdbcTemplate.queryForList(
+                    "SELECT indexdef FROM pg_indexes WHERE tablename = ?", String.class, partition);
+            assertTrue(indexes.stream().anyMatch(d -> d.endsWith("(expired_at)") || d.endsWith("(expiry_date)")),
+                    partition + ": " + indexes);
+        }
+    }
+
+    private void createScratchTable() {
+        jdbcTemplate.execute("CREATE TABLE " + scratch + " (id bigserial PRIMARY KEY, user_id bigint, "
+                + "created_at timestamptz NOT NULL, expires_at timestamptz NOT NULL)");
+    }
+
+    private boolean ensureScratchPartition(int days) {
+        return jdbcTemplate.queryForObject("SELECT crm_ensure_daily_partition(?, (now() AT TIME ZONE 'UTC')::date + ?)",
+                Boolean.class, scratch, days);
+    }
+
+    private void insertScratch(int createdDays, int expiresDays) {
+        jdbcTemplate.update("INSERT INTO " + scratch + " (created_at, expires_at) VALUES "
+                + "(now() + make_interval(days => ?), now() + make_interval(days => ?))", createdDays, expiresDays);
+    }
+
+    private List<String> rowPartitions() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT tableoid::regclass::text FROM " + scratch, String.class);
+    }
+
+    private String partitionKey() {
+        return jdbcTemplate.queryForObject("SELECT a.attname FROM pg_partitioned_table pt "
+                + "JOIN pg_attribute a ON a.attrelid = pt.partrelid AND a.attnum = pt.partattrs[0] "
+                + "WHERE pt.partrelid = ?::regclass", String.class, scratch);
+    }
+
+    private String partitionOf(String sessionId) {
+        return jdbcTemplate.queryForObject("SELECT tableoid::regclass::text FROM user_sessions WHERE session_id = ?",
+                String.class, sessionId);
+    }
+
+    private static String day(int offset) {
+        return LocalDate.now(ZoneOffset.UTC).plusDays(offset).format(DateTimeFormatter.BASIC_ISO_DATE);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.crm.service;
+
+import com.example.crm.config.SchemaExtensionsInitializer;
+import com.example.crm.model.RefreshToken;
+import com.example.crm.model.User;
+import com.example.crm.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Refresh tokens are stored and looked up by their SHA-256 only, and tokens stored in
+ * plaintext before that are hashed in place by schema-extensions.sql.
+ */
+@SpringBootTest
+class RefreshTokenHashTests {
+    @Autowired private RefreshTokenService refreshTokenService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private SchemaExtensionsInitializer schemaExtensions;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        String run = UUID.randomUUID().toString();
+        user = new User();
+        user.setUsername("hash-" + run);
+        user.setEmail("hash-" + run + "@example.com");
+        user.setPasswordHash("unused");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void deleteUser() {
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void onlyTheHashIsStoredAndLookupsHashThePresentedToken() throws Exception {
+        RefreshToken issued = refreshTokenService.createRefreshToken(user, null, new MockHttpServletRequest());
+        String token = issued.getToken();
+
+        byte[] stored = jdbcTemplate.queryForObject(
+                "SELECT token_hash FROM refresh_tokens WHERE id = ?", byte[].class, issued.getId());
+        assertArrayEquals(sha256(token), stored);
+        assertFalse(columns().contains("token"));
+
+        assertEquals(issued.getId(), refreshTokenService.findByToken(token).orElseThrow().getId());
+        assertTrue(refreshTokenService.findByToken(token + "x").isEmpty());
+
+        refreshTokenService.revokeToken(token);
+        assertTrue(refreshTokenService.findByToken(token).isEmpty());
+    }
+
+    @Test
+    void plaintextTokensAreHashedInPlace() throws Exception {
+        String legacyToken = "legacy-" + UUID.randomUUID();
+        // The table as it was before hashing: plaintext column, no hash yet
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens ADD COLUMN token varchar(255)");
+        jdbcTemplate.execute("ALTER TABLE refresh_tokens ALTER COLUMN token_hash DROP NOT NULL");
+        jdbcTemplate.update("INSERT INTO refresh_tokens (user_id, token, expiry_date, created_at, is_revoked) "
+                + "VALUES (?, ?, ?, now(), false)", user.getId(), legacyToken, OffsetDateTime.now().plusDays(1));
+
+        schemaExtensions.apply();
+
+        assertFalse(columns().contains("token"));
+        assertEquals("NO", jdbcTemplate.queryForObject("SELECT is_nullable FROM information_schema.columns "
+                + "WHERE table_name = 'refresh_tokens' AND column_name = 'token_hash'", String.class));
+        RefreshToken migrated = refreshTokenService.findByToken(legacyToken).orElseThrow();
+        assertEquals(user.getId(), migrated.getUser().getId());
+    }
+
+    private List<String> columns() {
+        return jdbcTemplate.queryForList(
+                "SELECT column_name FROM information_schema.columns WHERE table_name = 'refresh_tokens'", String.class);
+    }
+
+    private static byte[] sha256(String token) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.crm.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RevocationRegistryTests {
+    private final SessionIndex sessionIndex = mock(SessionIndex.class);
+    private final UserStatusCache userStatusCache = mock(UserStatusCache.class);
+    private final RevocationRegistry registry =
+            new RevocationRegistry(null, null, sessionIndex, userStatusCache, 30, 1000, 0.01);
+
+    @Test
+    void revokedSessionIsRejectedAndDeactivatedInIndex() {
+        registry.apply("s|session-1|" + (System.currentTimeMillis() + 60_000));
+
+        assertTrue(registry.isRevoked("session-1"));
+        assertFalse(registry.isRevoked("session-2"));
+        verify(sessionIndex).deactivate("session-1");
+    }
+
+    @Test
+    void userRevocationDeactivatesAllSessionsAndStatus() {
+        registry.apply("u|42|" + System.currentTimeMillis());
+
+        verify(sessionIndex).deactivateUser(42L);
+        verify(userStatusCache).invalidate(42L);
+    }
+
+    @Test
+    void revocationInATransactionAppliesOnlyOnCommit() {
+        RevocationRegistry publishing = new RevocationRegistry(
+                mock(JdbcTemplate.class), null, sessionIndex, userStatusCache, 30, 1000, 0.01);
+
+        inTransaction(() -> publishing.revokeSession("rolled-back"), false);
+        inTransaction(() -> {
+            publishing.revokeSession("committed");
+            assertFalse(publishing.isRevoked("committed"), "not before the commit");
+        }, true);
+
+        assertTrue(publishing.isRevoked("committed"));
+        assertFalse(publishing.isRevoked("rolled-back"));
+        verify(sessionIndex, never()).deactivate("rolled-back");
+    }
+
+    @Test
+    void expiredEntriesArePurged() {
+        registry.apply("t|jti-1|" + (System.currentTimeMillis() + 50));
+        assertTrue(registry.isRevoked("jti-1"));
+
+        sleep(100);
+        registry.purgeExpired();
+
+        assertFalse(registry.isRevoked("jti-1"));
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("revoked-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("revoked-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void inTransaction(Runnable work, boolean commit) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                if (commit) {
+                    sync.afterCommit();
+                }
+                sync.afterCompletion(commit
+                        ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
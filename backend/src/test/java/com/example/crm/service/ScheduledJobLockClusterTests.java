@@ -0,0 +1,145 @@
+package com.example.crm.service;
+
+import com.example.crm.CrmBackendApplication;
+import com.example.crm.model.ScheduledJobRun;
+import com.example.crm.repository.ScheduledJobRunRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application contexts against the same database stand in for two replicas.
+ */
+class ScheduledJobLockClusterTests {
+    private static final Duration LONG = Duration.ofMinutes(1);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("node-a");
+        nodeB = startNode("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeA != null) nodeA.close();
+        if (nodeB != null) nodeB.close();
+    }
+
+    @Test
+    void concurrentTicksRunOnOneNodeOnly() throws Exception {
+        String job = uniqueJob();
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        Runnable task = () -> {
+            runs.incrementAndGet();
+            sleep(300);
+        };
+
+        CompletableFuture<Boolean> a = CompletableFuture.supplyAsync(() -> {
+            await(go);
+            return lock(nodeA).runExclusively(job, LONG, LONG, task);
+        });
+        CompletableFuture<Boolean> b = CompletableFuture.supplyAsync(() -> {
+            await(go);
+            return lock(nodeB).runExclusively(job, LONG, LONG, task);
+        });
+        go.countDown();
+
+        assertNotEquals(a.get(10, TimeUnit.SECONDS), b.get(10, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        // A later tick in the same period is skipped on either node
+        assertFalse(lock(nodeA).runExclusively(job, LONG, LONG, task));
+        assertFalse(lock(nodeB).runExclusively(job, LONG, LONG, task));
+        assertEquals(1, history(job).size());
+    }
+
+    @Test
+    void leaseOfDeadNodeIsTakenOverOnceExpired() {
+        String job = uniqueJob();
+        nodeA.getBean(JdbcTemplate.class).update(
+                "INSERT INTO scheduler_leases (job_name, owner, locked_at, locked_until) " +
+                "VALUES (?, 'dead-node', now(), now() + interval '1 second')", job);
+
+        assertFalse(lock(nodeB).runExclusively(job, LONG, LONG, () -> { }));
+        sleep(1500);
+        assertTrue(lock(nodeB).runExclusively(job, LONG, LONG, () -> { }));
+
+        List<ScheduledJobRun> runs = history(job);
+        assertEquals(1, runs.size());
+        assertEquals("node-b", runs.get(0).getOwner());
+    }
+
+    @Test
+    void runStillInProgressBlocksOtherNodesAfterLeaseExpiry() throws Exception {
+        String job = uniqueJob();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Boolean> slow = CompletableFuture.supplyAsync(() ->
+                lock(nodeA).runExclusively(job, Duration.ofSeconds(1), Duration.ZERO, () -> {
+                    started.countDown();
+                    await(release);
+                }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        sleep(1500);
+
+        // The lease has expired, but node A still holds the advisory lock
+        assertFalse(lock(nodeB).runExclusively(job, LONG, Duration.ZERO, () -> { }));
+
+        release.countDown();
+        assertTrue(slow.get(10, TimeUnit.SECONDS));
+        assertTrue(lock(nodeB).runExclusively(job, LONG, Duration.ZERO, () -> { }));
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(CrmBackendApplication.class).run(
+                "--server.port=0",
+                "--scheduler.node-id=" + nodeId,
+                "--spring.jpa.show-sql=false",
+                "--security.password.bcrypt.strength=4");
+    }
+
+    private static ScheduledJobLock lock(ConfigurableApplicationContext node) {
+        return node.getBean(ScheduledJobLock.class);
+    }
+
+    private static List<ScheduledJobRun> history(String job) {
+        return nodeA.getBean(ScheduledJobRunRepository.class).findTop20ByJobNameOrderByStartedAtDesc(job);
+    }
+
+    private static String uniqueJob() {
+        return "test-job-" + UUID.randomUUID();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
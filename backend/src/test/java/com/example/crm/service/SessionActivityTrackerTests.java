@@ -0,0 +1,35 @@
+package com.example.crm.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class SessionActivityTrackerTests {
+    private final SessionActivityTracker tracker = new SessionActivityTracker(mock(JdbcTemplate.class), 30, 60);
+
+    @Test
+    void repeatedTouchesAreCoalescedToLatest() {
+        for (long t = 1; t <= 1000; t++) {
+            tracker.recordAccess("session-a", t);
+        }
+        tracker.recordAccess("session-b", 5);
+
+        Map<String, Long> pending = tracker.drain();
+
+        assertEquals(2, pending.size());
+        assertEquals(1000L, pending.get("session-a"));
+        assertEquals(5L, pending.get("session-b"));
+    }
+
+    @Test
+    void drainResetsPendingTouches() {
+        tracker.recordAccess("session-a", 1);
+        tracker.drain();
+
+        assertTrue(tracker.drain().isEmpty());
+    }
+}
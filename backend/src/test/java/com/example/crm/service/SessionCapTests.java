@@ -0,0 +1,103 @@
+package com.example.crm.service;
+
+import com.example.crm.model.User;
+import com.example.crm.repository.RefreshTokenRepository;
+import com.example.crm.repository.UserRepository;
+import com.example.crm.repository.UserSessionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Concurrent logins of one user never leave more than the allowed number of active
+ * sessions or refresh tokens: cap enforcement is serialized on the user row.
+ */
+@SpringBootTest
+class SessionCapTests {
+    private static final int LOGINS = 8;
+
+    @Autowired private UserRepository userRepository;
+    @Autowired private UserSessionRepository sessionRepository;
+    @Autowired private RefreshTokenRepository refreshTokenRepository;
+    @Autowired private SessionService sessionService;
+    @Autowired private RefreshTokenService refreshTokenService;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Value("${session.max-active-sessions-per-user}") private int maxSessions;
+    @Value("${jwt.max-active-refresh-tokens-per-user}") private int maxTokens;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        String run = UUID.randomUUID().toString();
+        user = new User();
+        user.setUsername("cap-" + run);
+        user.setEmail("cap-" + run + "@example.com");
+        user.setPasswordHash("unused");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void deleteUser() {
+        jdbcTemplate.update("DELETE FROM user_sessions WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void concurrentLoginsStayWithinTheCaps() throws Exception {
+        concurrently(() -> sessionService.createSession(user, new MockHttpServletRequest()));
+        concurrently(() -> refreshTokenService.createRefreshToken(user, null, new MockHttpServletRequest()));
+
+        assertEquals(maxSessions, sessionRepository.findByUserAndIsActiveTrue(user).size());
+        assertEquals(maxTokens, refreshTokenRepository.findByUserAndIsRevokedFalse(user).size());
+    }
+
+    @Test
+    void theNewestSessionsAreKept() {
+        List<String> sessionIds = new ArrayList<>();
+        for (int i = 0; i < LOGINS; i++) {
+            sessionIds.add(sessionService.createSession(user, new MockHttpServletRequest()).getSessionId());
+        }
+
+        List<String> active = sessionRepository.findByUserAndIsActiveTrue(user).stream()
+                .map(s -> s.getSessionId()).sorted().toList();
+        assertEquals(sessionIds.subList(LOGINS - maxSessions, LOGINS).stream().sorted().toList(), active);
+    }
+
+    private static void concurrently(Runnable login) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(LOGINS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> logins = new ArrayList<>();
+            for (int i = 0; i < LOGINS; i++) {
+                logins.add(executor.submit(() -> {
+                    start.await();
+                    login.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : logins) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.crm.service;
+
+import com.example.crm.model.User;
+import com.example.crm.model.UserSession;
+import com.example.crm.repository.UserRepository;
+import com.example.crm.repository.UserSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A node that missed a logout still learns of it from the deactivated row, which the
+ * cleanup keeps until the session has been expired for a full timeout.
+ */
+@SpringBootTest
+class SessionCleanupTests {
+    @Autowired private SessionService sessionService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private UserSessionRepository sessionRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        String run = UUID.randomUUID().toString();
+        user = new User();
+        user.setUsername("cleanup-" + run);
+        user.setEmail("cleanup-" + run + "@example.com");
+        user.setPasswordHash("unused");
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM user_sessions WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void staleIndexReplaysALogoutAfterTheCleanupRan() {
+        UserSession session = sessionService.createSession(user, new MockHttpServletRequest());
+        SessionIndex stale = new SessionIndex(sessionRepository, jdbcTemplate, new SimpleMeterRegistry(), 30, 60, "", 1024);
+        stale.put(session);
+
+        // Logged out while the stale node wasn't listening; its own requests keep sliding the expiry
+        jdbcTemplate.update("UPDATE user_sessions SET is_active = false WHERE session_id = ?", session.getSessionId());
+        stale.touch(session.getSessionId());
+        sessionService.cleanupExpiredSessions();
+        assertTrue(stale.isValid(session.getSessionId()), "not caught up yet");
+
+        stale.synchronize();
+
+        assertFalse(stale.isValid(session.getSessionId()));
+    }
+
+    @Test
+    void inactiveSessionsArePurgedOnlyOnceExpiredForATimeout() {
+        String live = insertInactive("now() + interval '10 minutes'");
+        String recentlyExpired = insertInactive("now() - interval '10 minutes'");
+        String longExpired = insertInactive("now() - interval '31 minutes'");
+
+        sessionService.cleanupExpiredSessions();
+
+        assertTrue(exists(live));
+        assertTrue(exists(recentlyExpired));
+        assertFalse(exists(longExpired));
+    }
+
+    private String insertInactive(String expiredAt) {
+        String sessionId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO user_sessions (user_id, session_id, ip_address, created_at, last_accessed_at, "
+                + "expired_at, is_active) VALUES (?, ?, '127.0.0.1', now(), now(), " + expiredAt + ", false)",
+                user.getId(), sessionId);
+        return sessionId;
+    }
+
+    private boolean exists(String sessionId) {
+        return jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM user_sessions WHERE session_id = ?)",
+                Boolean.class, sessionId);
+    }
+}
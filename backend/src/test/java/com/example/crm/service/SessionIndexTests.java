@@ -0,0 +1,144 @@
+package com.example.crm.service;
+
+import com.example.crm.model.User;
+import com.example.crm.model.UserSession;
+import com.example.crm.repository.UserSessionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SessionIndexTests {
+    private final UserSessionRepository repository = mock(UserSessionRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SessionIndex index = new SessionIndex(repository, null, meterRegistry, 30, 60, "", 1024);
+
+    @Test
+    void knownSessionIsValidatedWithoutRepositoryCall() {
+        index.put(session("s1", 1L, true, OffsetDateTime.now().plusMinutes(30)));
+
+        assertTrue(index.isValid("s1"));
+        assertTrue(index.isValid("s1"));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void unknownSessionIsLoadedOnceAndRemembered() {
+        when(repository.findBySessionId("s2"))
+                .thenReturn(Optional.of(session("s2", 1L, true, OffsetDateTime.now().plusMinutes(30))));
+
+        assertTrue(index.isValid("s2"));
+        assertTrue(index.isValid("s2"));
+        verify(repository, times(1)).findBySessionId("s2");
+    }
+
+    @Test
+    void missingSessionIsTombstoned() {
+        when(repository.findBySessionId("nope")).thenReturn(Optional.empty());
+
+        assertFalse(index.isValid("nope"));
+        assertFalse(index.isValid("nope"));
+        verify(repository, times(1)).findBySessionId("nope");
+    }
+
+    @Test
+    void deactivationWritesThrough() {
+        index.put(session("s1", 1L, true, OffsetDateTime.now().plusMinutes(30)));
+        index.put(session("s2", 2L, true, OffsetDateTime.now().plusMinutes(30)));
+        index.put(session("s3", 2L, true, OffsetDateTime.now().plusMinutes(30)));
+
+        index.deactivate("s1");
+        index.deactivateUser(2L);
+
+        assertFalse(index.isValid("s1"));
+        assertFalse(index.isValid("s2"));
+        assertFalse(index.isValid("s3"));
+    }
+
+    @Test
+    void expiredSessionIsInvalidAndEvicted() {
+        UserSession expired = session("s1", 1L, true, OffsetDateTime.now().minusSeconds(5));
+        index.put(expired);
+        when(repository.findBySessionId("s1")).thenReturn(Optional.of(expired));
+
+        assertFalse(index.isValid("s1"));
+        assertFalse(index.isValid("s1"));
+        verify(repository, times(1)).findBySessionId("s1");
+        // Remembered as invalid for the tombstone TTL, then swept
+        index.expireEntries(System.currentTimeMillis() + 61_000);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void expiredActiveRecordIsReloadedBeforeRejecting() {
+        // Expired locally, but extended on another node meanwhile
+        index.put(session("s1", 1L, true, OffsetDateTime.now().minusSeconds(5)));
+        when(repository.findBySessionId("s1"))
+                .thenReturn(Optional.of(session("s1", 1L, true, OffsetDateTime.now().plusMinutes(30))));
+
+        assertTrue(index.isValid("s1"));
+        assertTrue(index.isValid("s1"));
+        verify(repository, times(1)).findBySessionId("s1");
+    }
+
+    @Test
+    void sessionsThatDoNotFitAreCounted() {
+        SessionIndex tiny = new SessionIndex(repository, null, meterRegistry, 30, 60, "", 4);
+        for (int i = 0; i < 4; i++) {
+            tiny.put(session("s" + i, 1L, true, OffsetDateTime.now().plusMinutes(30)));
+        }
+
+        assertEquals(3, tiny.size());
+        assertEquals(1.0, meterRegistry.counter("crm.session.index.full").count());
+    }
+
+    @Test
+    void reopenedIndexKeepsSessionsWithoutRepositoryCalls(@TempDir Path dir) throws Exception {
+        String file = dir.resolve("sessions.dat").toString();
+        String active = UUID.randomUUID().toString();
+        String revoked = UUID.randomUUID().toString();
+        SessionIndex first = new SessionIndex(repository, null, meterRegistry, 30, 60, file, 1024);
+        first.put(session(active, 1L, true, OffsetDateTime.now().plusMinutes(30)));
+        first.put(session(revoked, 1L, true, OffsetDateTime.now().plusMinutes(30)));
+        first.deactivate(revoked);
+        first.stop();
+
+        SessionIndex restarted = new SessionIndex(repository, null, meterRegistry, 30, 60, file, 1024);
+
+        assertEquals(2, restarted.size());
+        assertTrue(restarted.isValid(active));
+        assertFalse(restarted.isValid(revoked));
+        verifyNoInteractions(repository);
+        restarted.stop();
+    }
+
+    @Test
+    void sweptSlotsAreReusedAndCompacted() {
+        for (int i = 0; i < 2000; i++) {
+            index.put(session(UUID.randomUUID().toString(), 1L, true, OffsetDateTime.now().minusSeconds(5)));
+            index.expireEntries(System.currentTimeMillis());
+        }
+        String live = UUID.randomUUID().toString();
+        index.put(session(live, 1L, true, OffsetDateTime.now().plusMinutes(30)));
+
+        assertEquals(1, index.size());
+        assertTrue(index.isValid(live));
+    }
+
+    private UserSession session(String sessionId, Long userId, boolean active, OffsetDateTime expiredAt) {
+        return UserSession.builder()
+                .sessionId(sessionId)
+                .user(User.builder().id(userId).build())
+                .isActive(active)
+                .createdAt(OffsetDateTime.now().minusMinutes(1))
+                .expiredAt(expiredAt)
+                .build();
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.crm.service;
+
+import com.example.crm.dto.AuthRequest;
+import com.example.crm.dto.AuthResponse;
+import com.example.crm.dto.RefreshTokenRequest;
+import com.example.crm.model.User;
+import com.example.crm.repository.UserRepository;
+import com.example.crm.repository.UserSessionRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A refresh keeps alive the session its refresh token was issued with, and no other.
+ */
+@SpringBootTest
+class TokenRefreshTests {
+    private static final String PASSWORD = "refresh-test-password";
+
+    @Autowired private AuthService authService;
+    @Autowired private SessionService sessionService;
+    @Autowired private RefreshTokenService refreshTokenService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private UserSessionRepository sessionRepository;
+    @Autowired private PasswordEncoder passwordEncoder;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Value("${jwt.access-token.secret}") private String accessTokenSecret;
+
+    private User user;
+
+    @BeforeEach
+    void createUser() {
+        String run = UUID.randomUUID().toString();
+        user = new User();
+        user.setUsername("refresh-" + run);
+        user.setEmail("refresh-" + run + "@curema.com");
+        user.setPasswordHash(passwordEncoder.encode(PASSWORD));
+        user = userRepository.save(user);
+    }
+
+    @AfterEach
+    void deleteUser() {
+        jdbcTemplate.update("DELETE FROM user_sessions WHERE user_id = ?", user.getId());
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void refreshExtendsTheTokensOwnSession() {
+        AuthResponse login = login();
+
+        AuthResponse refreshed = refresh(login.getRefreshToken(), null, new MockHttpServletRequest());
+
+        assertEquals(login.getSessionId(), refreshed.getSessionId());
+        assertTrue(sessionRepository.findBySessionIdAndIsActiveTrue(login.getSessionId()).isPresent());
+    }
+
+    @Test
+    void goneSessionIsReplacedAndTheTokenRebound() {
+        AuthResponse login = login();
+        sessionService.deactivateSession(login.getSessionId());
+
+        AuthResponse refreshed = refresh(login.getRefreshToken(), login.getSessionId(), new MockHttpServletRequest());
+        assertNotEquals(login.getSessionId(), refreshed.getSessionId());
+
+        // The token now belongs to the new session, and only to it
+        assertEquals(refreshed.getSessionId(),
+                refresh(login.getRefreshToken(), refreshed.getSessionId(), new MockHttpServletRequest()).getSessionId());
+        assertThrows(RuntimeException.class,
+                () -> refresh(login.getRefreshToken(), login.getSessionId(), new MockHttpServletRequest()));
+    }
+
+    @Test
+    void anotherSessionOfTheSameUserIsNotExtended() {
+        AuthResponse laptop = login();
+        AuthResponse phone = login();
+
+        assertThrows(RuntimeException.class,
+                () -> refresh(laptop.getRefreshToken(), phone.getSessionId(), new MockHttpServletRequest()));
+
+        MockHttpServletRequest withPhoneToken = new MockHttpServletRequest();
+        withPhoneToken.addHeader("Authorization", "Bearer " + phone.getAccessToken());
+        assertThrows(RuntimeException.class, () -> refresh(laptop.getRefreshToken(), null, withPhoneToken));
+    }
+
+    @Test
+    void unboundTokenFallsBackToTheExpiredAccessTokensSession() {
+        String sessionId = sessionService.createSession(user, new MockHttpServletRequest()).getSessionId();
+        // Issued before refresh tokens were bound to sessions
+        String refreshToken = refreshTokenService.createRefreshToken(user, null, new MockHttpServletRequest()).getToken();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + expiredAccessToken(sessionId));
+
+        assertEquals(sessionId, refresh(refreshToken, null, request).getSessionId());
+        // and is bound to it from then on
+        assertEquals(sessionId, refresh(refreshToken, null, new MockHttpServletRequest()).getSessionId());
+    }
+
+    private AuthResponse login() {
+        AuthRequest request = new AuthRequest();
+        request.setUsername(user.getUsername());
+        request.setPassword(PASSWORD);
+        return authService.login(request, new MockHttpServletRequest());
+    }
+
+    private AuthResponse refresh(String refreshToken, String sessionId, MockHttpServletRequest httpRequest) {
+        return authService.refreshToken(new RefreshTokenRequest(refreshToken, sessionId, null), httpRequest);
+    }
+
+    private String expiredAccessToken(String sessionId) {
+        Date issuedAt = new Date(System.currentTimeMillis() - 120_000);
+        return Jwts.builder()
+                .setClaims(Map.of("userId", user.getId(), "sessionId", sessionId, "tokenType", "access"))
+                .setSubject(user.getUsername())
+                .setIssuedAt(issuedAt)
+                .setExpiration(new Date(issuedAt.getTime() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(accessTokenSecret.getBytes()), SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
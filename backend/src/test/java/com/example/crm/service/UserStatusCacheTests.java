@@ -0,0 +1,65 @@
+package com.example.crm.service;
+
+import com.example.crm.model.User;
+import com.example.crm.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserStatusCacheTests {
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserStatusCache cache = new UserStatusCache(userRepository, 3600, 100);
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setId(7L);
+        user.setIsEnabled(true);
+        user.setIsAccountNonLocked(true);
+        user.setIsAccountNonExpired(true);
+        user.setIsCredentialsNonExpired(true);
+        when(userRepository.findById(7L)).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void statusIsLoadedOncePerTtl() {
+        assertTrue(cache.isAccountUsable(7L));
+        assertTrue(cache.isAccountUsable(7L));
+
+        verify(userRepository, times(1)).findById(7L);
+    }
+
+    @Test
+    void disablingAppliesOnInvalidate() {
+        assertTrue(cache.isAccountUsable(7L));
+
+        user.setIsEnabled(false);
+        assertTrue(cache.isAccountUsable(7L), "served from cache until invalidated");
+
+        cache.invalidate(7L);
+        assertFalse(cache.isAccountUsable(7L));
+    }
+
+    @Test
+    void logoutAllInvalidatesThroughTheRevocationRegistry() {
+        RevocationRegistry registry = new RevocationRegistry(
+                null, null, mock(SessionIndex.class), cache, 30, 1000, 0.01);
+        assertTrue(cache.isAccountUsable(7L));
+
+        user.setIsAccountNonLocked(false);
+        registry.apply("u|7|" + System.currentTimeMillis());
+
+        assertFalse(cache.isAccountUsable(7L));
+    }
+
+    @Test
+    void unknownUsersAreUnusable() {
+        assertFalse(cache.isAccountUsable(8L));
+        assertFalse(cache.isAccountUsable(null));
+    }
+}
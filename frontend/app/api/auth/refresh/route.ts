@@ -7,6 +7,8 @@ export async function POST(request: NextRequest) {
   try {
     const cookieStore = await cookies();
     const refreshToken = cookieStore.get("refresh_token")?.value;
+    const sessionId = cookieStore.get("session_id")?.value;
+    const accessToken = cookieStore.get("access_token")?.value;
 
     if (!refreshToken) {
       return NextResponse.json(
@@ -19,8 +21,10 @@ export async function POST(request: NextRequest) {
       method: "POST",
       headers: {
         "Content-Type": "application/json",
+        // Lets the backend keep the current session even if only the token is left
+        ...(accessToken ? { Authorization: `Bearer ${accessToken}` } : {}),
       },
-      body: JSON.stringify({ refreshToken }),
+      body: JSON.stringify({ refreshToken, sessionId }),
     });
 
     if (!response.ok) {
@@ -1,18 +1,9 @@
-import { getActivities } from "@/lib/api/activity";
-import { getContactById } from "@/lib/api/contact";
+import { getActivitiesWithContact } from "@/lib/api/activity";
 import DataTableDemo from "./data-table";
 
 export default async function ActivitiesPage() {
-  const activities = await getActivities();
+  // Each activity arrives with its contact embedded, in one request
+  const activities = await getActivitiesWithContact();
 
-  const activitiesWithContact = await Promise.all(
-    activities?.map(async (activity) => ({
-      ...activity,
-      contact: activity.contactId
-        ? await getContactById(activity.contactId)
-        : null,
-    })) || []
-  );
-
-  return <DataTableDemo data={activitiesWithContact || []} />;
+  return <DataTableDemo data={activities || []} />;
 }
@@ -1,8 +1,5 @@
 import { notFound } from "next/navigation";
-import { getCompanyById } from "@/lib/api/company";
-import { getContacts } from "@/lib/api/contact";
-import { getOpportunities } from "@/lib/api/opportunity";
-import { getActivities } from "@/lib/api/activity";
+import { getCompanyOverview } from "@/lib/api/company";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 import { Badge } from "@/components/ui/badge";
 import { Button } from "@/components/ui/button";
@@ -36,43 +33,25 @@ export default async function CompanyPage({ params }: CompanyPageProps) {
     notFound();
   }
 
-  const [company, allContacts, allOpportunities, allActivities] =
-    await Promise.all([
-      getCompanyById(companyId),
-      getContacts(),
-      getOpportunities(),
-      getActivities(),
-    ]);
+  // The company with its contacts and their opportunities and activities
+  const overview = await getCompanyOverview(companyId);
 
-  if (!company) {
+  if (!overview) {
     notFound();
   }
 
-  // Get contacts for this company
-  const companyContacts =
-    allContacts?.filter((contact) => contact.companyId === companyId) || [];
-
-  // Get contact IDs for this company
-  const companyContactIds = companyContacts.map((contact) => contact.id);
-
-  // Get opportunities for this company's contacts
-  const companyOpportunities =
-    allOpportunities?.filter((opportunity) =>
-      companyContactIds.includes(opportunity.contactId)
-    ) || [];
+  const {
+    company,
+    contacts: companyContacts,
+    opportunities: companyOpportunities,
+    activities: companyActivities,
+  } = overview;
 
   // Get active opportunities (not WON or LOST)
   const activeOpportunities = companyOpportunities.filter(
     (opportunity) => !["WON", "LOST"].includes(opportunity.stage)
   );
 
-  // Get activities for this company's contacts
-  const companyActivities =
-    allActivities?.filter(
-      (activity) =>
-        activity.contactId && companyContactIds.includes(activity.contactId)
-    ) || [];
-
   // Get the primary contact (first contact associated with this company)
   const primaryContact = companyContacts[0];
 
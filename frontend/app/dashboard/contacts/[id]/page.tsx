@@ -1,8 +1,5 @@
 import { notFound } from "next/navigation";
-import { getContactById } from "@/lib/api/contact";
-import { getCompanyById } from "@/lib/api/company";
-import { getOpportunities } from "@/lib/api/opportunity";
-import { getActivities } from "@/lib/api/activity";
+import { getContactOverview } from "@/lib/api/contact";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 import { Badge } from "@/components/ui/badge";
 import { Button } from "@/components/ui/button";
@@ -37,26 +34,19 @@ export default async function ContactPage({ params }: ContactPageProps) {
     notFound();
   }
 
-  const [contact, allOpportunities, allActivities] = await Promise.all([
-    getContactById(contactId),
-    getOpportunities(),
-    getActivities(),
-  ]);
+  // The contact with its company, opportunities and activities
+  const overview = await getContactOverview(contactId);
 
-  if (!contact) {
+  if (!overview) {
     notFound();
   }
 
-  // Get company details if contact has a company
-  const company = contact.companyId
-    ? await getCompanyById(contact.companyId)
-    : null;
-
-  // Get opportunities for this contact
-  const contactOpportunities =
-    allOpportunities?.filter(
-      (opportunity) => opportunity.contactId === contactId
-    ) || [];
+  const {
+    contact,
+    company,
+    opportunities: contactOpportunities,
+    activities: contactActivities,
+  } = overview;
 
   // Get active opportunities (not WON or LOST)
   const activeOpportunities = contactOpportunities.filter(
@@ -69,10 +59,6 @@ export default async function ContactPage({ params }: ContactPageProps) {
     0
   );
 
-  // Get activities for this contact
-  const contactActivities =
-    allActivities?.filter((activity) => activity.contactId === contactId) || [];
-
   // Get recent activities (last 5)
   const recentActivities = contactActivities
     .sort(
@@ -1,18 +1,9 @@
-import { getContacts } from "@/lib/api/contact";
+import { getContactsWithCompany } from "@/lib/api/contact";
 import DataTableDemo from "./data-table";
-import { getCompanyById } from "@/lib/api/company";
 
 export default async function ContactsPage() {
-  const contacts = await getContacts();
+  // Each contact arrives with its company embedded, in one request
+  const contacts = await getContactsWithCompany();
 
-  const contactsWithCompany = await Promise.all(
-    contacts?.map(async (contact) => ({
-      ...contact,
-      company: contact.companyId
-        ? await getCompanyById(contact.companyId)
-        : null,
-    })) || []
-  );
-
-  return <DataTableDemo data={contactsWithCompany || []} />;
+  return <DataTableDemo data={contacts || []} />;
 }
@@ -1,8 +1,5 @@
 import { notFound } from "next/navigation";
-import { getOpportunityById } from "@/lib/api/opportunity";
-import { getContactById } from "@/lib/api/contact";
-import { getCompanyById } from "@/lib/api/company";
-import { getActivities } from "@/lib/api/activity";
+import { getOpportunityOverview } from "@/lib/api/opportunity";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
 import { Badge } from "@/components/ui/badge";
 import { Button } from "@/components/ui/button";
@@ -45,26 +42,19 @@ export default async function OpportunityPage({
     notFound();
   }
 
-  const [opportunity, allActivities] = await Promise.all([
-    getOpportunityById(opportunityId),
-    getActivities(),
-  ]);
+  // The opportunity with its contact, company and the contact's activities
+  const overview = await getOpportunityOverview(opportunityId);
 
-  if (!opportunity) {
+  if (!overview) {
     notFound();
   }
 
-  // Get contact and company details
-  const contact = await getContactById(opportunity.contactId);
-  const company = contact?.companyId
-    ? await getCompanyById(contact.companyId)
-    : null;
-
-  // Get activities for this opportunity
-  const opportunityActivities =
-    allActivities?.filter(
-      (activity) => activity.contactId === opportunity.contactId
-    ) || [];
+  const {
+    opportunity,
+    contact,
+    company,
+    activities: opportunityActivities,
+  } = overview;
 
   // Get recent activities (last 5)
   const recentActivities = opportunityActivities
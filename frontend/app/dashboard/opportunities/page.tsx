@@ -1,16 +1,9 @@
-import { getOpportunities } from "@/lib/api/opportunity";
-import { getContactById } from "@/lib/api/contact";
+import { getOpportunitiesWithContact } from "@/lib/api/opportunity";
 import DataTableDemo from "./data-table";
 
 export default async function OpportunitiesPage() {
-  const opportunities = await getOpportunities();
+  // Each opportunity arrives with its contact embedded, in one request
+  const opportunities = await getOpportunitiesWithContact();
 
-  const opportunitiesWithContact = await Promise.all(
-    opportunities?.map(async (opportunity) => ({
-      ...opportunity,
-      contact: await getContactById(opportunity.contactId),
-    })) || []
-  );
-
-  return <DataTableDemo data={opportunitiesWithContact || []} />;
+  return <DataTableDemo data={opportunities || []} />;
 }
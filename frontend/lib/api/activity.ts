@@ -1,6 +1,11 @@
 "use server";
 
-import { ActivityCreateDto, ActivityDto, ContactDto } from "./types";
+import {
+  ActivityCreateDto,
+  ActivityDto,
+  ActivityWithContactDto,
+  ContactDto,
+} from "./types";
 import { fetchDirect } from "./utils";
 import { TAGS } from "@/lib/constants";
 import { revalidateTag } from "next/cache";
@@ -8,7 +13,23 @@ import { revalidateTag } from "next/cache";
 export async function getActivities() {
   try {
     const activities = await fetchDirect<ActivityDto[]>(
-      "/activities",
+      "/activities?unpaged=true",
+      {
+        method: "GET",
+      },
+      TAGS.ACTIVITY
+    );
+
+    return activities;
+  } catch (error) {
+    console.error(error);
+  }
+}
+
+export async function getActivitiesWithContact() {
+  try {
+    const activities = await fetchDirect<ActivityWithContactDto[]>(
+      "/activities?unpaged=true&expand=contact",
       {
         method: "GET",
       },
@@ -1,13 +1,13 @@
 "use server";
 
-import { CompanyCreateDto, CompanyDto } from "./types";
+import { CompanyCreateDto, CompanyDto, CompanyOverviewDto } from "./types";
 import { fetchServer } from "./utils";
 import { revalidateTag } from "next/cache";
 import { TAGS } from "@/lib/constants";
 
 export async function getCompanies() {
   try {
-    const companies = await fetchServer<CompanyDto[]>("/companies", {
+    const companies = await fetchServer<CompanyDto[]>("/companies?unpaged=true", {
       method: "GET",
     });
 
@@ -33,6 +33,22 @@ export async function getCompanyById(id: number) {
   }
 }
 
+export async function getCompanyOverview(id: number) {
+  try {
+    const overview = await fetchServer<CompanyOverviewDto>(
+      `/companies/${id}/overview`,
+      {
+        method: "GET",
+      },
+      TAGS.COMPANY
+    );
+
+    return overview;
+  } catch (error) {
+    console.error(error);
+  }
+}
+
 export async function createCompany(company: CompanyCreateDto) {
   try {
     await fetchServer(
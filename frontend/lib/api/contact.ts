@@ -1,6 +1,11 @@
 "use server";
 
-import { ContactCreateDto, ContactDto } from "./types";
+import {
+  ContactCreateDto,
+  ContactDto,
+  ContactOverviewDto,
+  ContactWithCompanyDto,
+} from "./types";
 import { fetchDirect } from "./utils";
 import { TAGS } from "@/lib/constants";
 import { revalidateTag } from "next/cache";
@@ -8,7 +13,23 @@ import { revalidateTag } from "next/cache";
 export async function getContacts() {
   try {
     const contacts = await fetchDirect<ContactDto[]>(
-      "/contacts",
+      "/contacts?unpaged=true",
+      {
+        method: "GET",
+      },
+      TAGS.CONTACT
+    );
+
+    return contacts;
+  } catch (error) {
+    console.error(error);
+  }
+}
+
+export async function getContactsWithCompany() {
+  try {
+    const contacts = await fetchDirect<ContactWithCompanyDto[]>(
+      "/contacts?unpaged=true&expand=company",
       {
         method: "GET",
       },
@@ -37,6 +58,22 @@ export async function getContactById(id: number) {
   }
 }
 
+export async function getContactOverview(id: number) {
+  try {
+    const overview = await fetchDirect<ContactOverviewDto>(
+      `/contacts/${id}/overview`,
+      {
+        method: "GET",
+      },
+      TAGS.CONTACT
+    );
+
+    return overview;
+  } catch (error) {
+    console.error(error);
+  }
+}
+
 export async function createContact(contact: ContactCreateDto) {
   await fetchDirect(
     "/contacts",
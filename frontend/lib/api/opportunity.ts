@@ -1,6 +1,11 @@
 "use server";
 
-import { OpportunityCreateDto, OpportunityDto } from "./types";
+import {
+  OpportunityCreateDto,
+  OpportunityDto,
+  OpportunityOverviewDto,
+  OpportunityWithContactDto,
+} from "./types";
 import { fetchDirect } from "./utils";
 import { TAGS } from "@/lib/constants";
 import { revalidateTag } from "next/cache";
@@ -8,7 +13,23 @@ import { revalidateTag } from "next/cache";
 export async function getOpportunities() {
   try {
     const opportunities = await fetchDirect<OpportunityDto[]>(
-      "/opportunities",
+      "/opportunities?unpaged=true",
+      {
+        method: "GET",
+      },
+      TAGS.OPPORTUNITY
+    );
+
+    return opportunities;
+  } catch (error) {
+    console.error(error);
+  }
+}
+
+export async function getOpportunitiesWithContact() {
+  try {
+    const opportunities = await fetchDirect<OpportunityWithContactDto[]>(
+      "/opportunities?unpaged=true&expand=contact",
       {
         method: "GET",
       },
@@ -37,6 +58,22 @@ export async function getOpportunityById(id: number) {
   }
 }
 
+export async function getOpportunityOverview(id: number) {
+  try {
+    const overview = await fetchDirect<OpportunityOverviewDto>(
+      `/opportunities/${id}/overview`,
+      {
+        method: "GET",
+      },
+      TAGS.OPPORTUNITY
+    );
+
+    return overview;
+  } catch (error) {
+    console.error(error);
+  }
+}
+
 export async function createOpportunity(opportunity: OpportunityCreateDto) {
   await fetchDirect(
     "/opportunities",
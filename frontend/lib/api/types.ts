@@ -61,6 +61,40 @@ export interface ActivityDto {
 export interface ActivityCreateDto
   extends Omit<ActivityDto, "id" | "createdAt" | "updatedAt"> {}
 
+// List rows with related records embedded (?expand=...)
+export interface ContactWithCompanyDto extends ContactDto {
+  company?: CompanyDto | null;
+}
+
+export interface OpportunityWithContactDto extends OpportunityDto {
+  contact?: ContactWithCompanyDto | null;
+}
+
+export interface ActivityWithContactDto extends ActivityDto {
+  contact?: ContactWithCompanyDto | null;
+}
+
+export interface CompanyOverviewDto {
+  company: CompanyDto;
+  contacts: ContactDto[]; // oldest first
+  opportunities: OpportunityDto[]; // newest first
+  activities: ActivityDto[]; // newest first
+}
+
+export interface ContactOverviewDto {
+  contact: ContactDto;
+  company?: CompanyDto | null;
+  opportunities: OpportunityDto[];
+  activities: ActivityDto[];
+}
+
+export interface OpportunityOverviewDto {
+  opportunity: OpportunityDto;
+  contact: ContactDto;
+  company?: CompanyDto | null;
+  activities: ActivityDto[]; // the contact's activities
+}
+
 export interface UserInfoDto {
   id: number;
   username: string;